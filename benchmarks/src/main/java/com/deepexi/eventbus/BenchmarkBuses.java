@@ -0,0 +1,46 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.base.MoreExecutors;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p> builds buses with any {@link Dispatcher}, which the public constructors do not all expose.
+ * Lives in the library's package for that reason only. </p>
+ */
+public final class BenchmarkBuses {
+    /** the dispatcher names accepted by {@link #create(String, Executor)} **/
+    public static final String PER_THREAD_QUEUE = "perThreadQueue";
+    public static final String IMMEDIATE = "immediate";
+    public static final String LEGACY_ASYNC = "legacyAsync";
+    public static final String RING_BUFFER = "ringBuffer";
+
+    private static final int RING_BUFFER_SIZE = 1 << 16;
+
+    private BenchmarkBuses() {}
+
+    /** Creates a bus that dispatches with the named dispatcher and calls subscribers on {@code executor}. */
+    public static EventBus create(String dispatcher, Executor executor) {
+        return new EventBus(dispatcher, executor, dispatcher(dispatcher), EventBus.LoggingHandler.INSTANCE);
+    }
+
+    /** Creates a synchronous bus that dispatches with the named dispatcher. */
+    public static EventBus create(String dispatcher) {
+        return create(dispatcher, MoreExecutors.directExecutor());
+    }
+
+    private static Dispatcher dispatcher(String name) {
+        switch (name) {
+            case PER_THREAD_QUEUE:
+                return Dispatcher.perThreadDispatchQueue();
+            case IMMEDIATE:
+                return Dispatcher.immediate();
+            case LEGACY_ASYNC:
+                return Dispatcher.legacyAsync();
+            case RING_BUFFER:
+                return Dispatcher.ringBuffer("benchmark", RING_BUFFER_SIZE);
+            default:
+                throw new IllegalArgumentException("Unknown dispatcher " + name);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.annotation.EventKey;
+
+/**
+ * <p> the event posted by the benchmarks, preallocated so posting itself allocates nothing </p>
+ */
+public final class BenchEvent {
+    @EventKey
+    private final long id;
+
+    public BenchEvent(long id) {
+        this.id = id;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
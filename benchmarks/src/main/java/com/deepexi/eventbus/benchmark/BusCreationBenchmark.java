@@ -0,0 +1,88 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.base.MoreExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> cost of creating a bus, as one per tenant, and registering one listener of each of four
+ * listener classes on it. The classes are the same for every bus, so only the first bus of the
+ * process has to scan them and build their invokers. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusCreationBenchmark {
+
+    @Benchmark
+    public EventBus createAndPopulate() {
+        EventBus bus = EventBus.Builder.anEventBus()
+                .withIdentifier("tenant")
+                .withExecutor(MoreExecutors.directExecutor())
+                .withMetrics(false)
+                .build();
+        bus.register(new OrderListener());
+        bus.register(new PaymentListener());
+        bus.register(new AuditListener());
+        bus.register(new NotificationListener());
+        return bus;
+    }
+
+    public static class OrderListener {
+        @Subscribe
+        public void onEvent(BenchEvent event) {
+        }
+
+        @Subscribe
+        public void onText(String text) {
+        }
+
+        @Subscribe
+        public void onNumber(Integer number) {
+        }
+    }
+
+    public static class PaymentListener {
+        @Subscribe
+        public void onEvent(BenchEvent event) {
+        }
+
+        @Subscribe
+        public void onNumber(Long number) {
+        }
+    }
+
+    public static class AuditListener {
+        @Subscribe
+        public void onAny(Object event) {
+        }
+
+        @Subscribe
+        public void onEvent(BenchEvent event) {
+        }
+    }
+
+    public static class NotificationListener {
+        @Subscribe
+        public void onText(String text) {
+        }
+
+        @Subscribe
+        public void onEvent(BenchEvent event) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.BenchmarkBuses;
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> several producer threads posting to one shared bus </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ContendedPostBenchmark {
+
+    @Param({BenchmarkBuses.PER_THREAD_QUEUE, BenchmarkBuses.RING_BUFFER})
+    public String dispatcher;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private EventBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = BenchmarkBuses.create(dispatcher);
+        AtomicLong received = new AtomicLong();
+        for (int i = 0; i < 4; i++) {
+            bus.register(new CountingListener(received));
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+}
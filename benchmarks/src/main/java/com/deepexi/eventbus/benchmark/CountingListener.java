@@ -0,0 +1,24 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> a cheap subscriber of {@link BenchEvent}, counting deliveries so asynchronous benchmarks can
+ * wait for them. Thread-safe, so the bus does not serialize calls to it. </p>
+ */
+public class CountingListener {
+    private final AtomicLong received;
+
+    public CountingListener(AtomicLong received) {
+        this.received = received;
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(BenchEvent event) {
+        received.incrementAndGet();
+    }
+}
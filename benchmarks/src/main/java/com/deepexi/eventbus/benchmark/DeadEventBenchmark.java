@@ -0,0 +1,63 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.DeadEvent;
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> posting an event nobody subscribes to, which wraps it in a {@link DeadEvent} and posts that </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeadEventBenchmark {
+
+    @Param({"false", "true"})
+    public boolean deadEventSubscriber;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private EventBus bus;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        bus = new EventBus("dead-events", false);
+        if (deadEventSubscriber) {
+            bus.register(new DeadEventListener(blackhole));
+        }
+    }
+
+    @Benchmark
+    public void postUnsubscribed() {
+        bus.post(event);
+    }
+
+    public static class DeadEventListener {
+        private final Blackhole blackhole;
+
+        public DeadEventListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onDeadEvent(DeadEvent event) {
+            blackhole.consume(event);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> cost of one post on a synchronous bus as the number of subscribers of the event grows </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private EventBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = new EventBus("fan-out", false);
+        AtomicLong received = new AtomicLong();
+        for (int i = 0; i < subscribers; i++) {
+            bus.register(new CountingListener(received));
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+}
@@ -0,0 +1,57 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.SubscribeMethod;
+import com.deepexi.eventbus.SubscriberInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> calling a cheap subscriber through its prebuilt {@link SubscriberInvoker} versus
+ * {@link Method#invoke(Object, Object...)} </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokerBenchmark {
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private final CountingListener listener = new CountingListener(new AtomicLong());
+    private Method method;
+    private SubscriberInvoker invoker;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = CountingListener.class.getMethod("onEvent", BenchEvent.class);
+        invoker = SubscribeMethod.Builder.aSubscribeMethod()
+                .withMethod(method)
+                .withEventType(BenchEvent.class)
+                .withName("counter")
+                .build()
+                .getInvoker();
+    }
+
+    @Benchmark
+    public void reflective() throws Exception {
+        method.invoke(listener, event);
+    }
+
+    @Benchmark
+    public void invoker() throws Throwable {
+        invoker.invoke(listener, event);
+    }
+}
@@ -0,0 +1,118 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.AsyncEventBus;
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> throughput of subscribers blocking on I/O, simulated by a sleep, on the default single-thread
+ * bus, an {@link AsyncEventBus} on a fixed pool, platform partition lanes, and virtual threads
+ * (per call, and per lane). Run on Java 21 or later: before that the virtual thread options fall
+ * back to platform threads. Each invocation waits until the batch has been handled. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class IoBoundBenchmark {
+    private static final int BATCH = 256;
+    private static final int KEYS = 1024;
+    private static final int POOL_THREADS = 16;
+    private static final int PLATFORM_LANES = 16;
+    private static final int VIRTUAL_LANES = 1024;
+
+    @Param({"oneThread", "fixedPool", "partitioned", "virtual", "virtualPartitioned"})
+    public String executor;
+
+    /** the simulated I/O latency of one call **/
+    @Param({"1"})
+    public long ioMillis;
+
+    private final AtomicLong received = new AtomicLong();
+    private final BenchEvent[] events = new BenchEvent[KEYS];
+    private EventBus eventBus;
+    private ExecutorService pool;
+
+    @Setup
+    public void setUp() {
+        switch (executor) {
+            case "oneThread":
+                eventBus = new EventBus("one-thread", true);
+                break;
+            case "fixedPool":
+                pool = Executors.newFixedThreadPool(POOL_THREADS);
+                eventBus = new AsyncEventBus("fixed-pool", pool);
+                break;
+            case "partitioned":
+                eventBus = EventBus.Builder.anEventBus().withPartitionedExecutor(PLATFORM_LANES).build();
+                break;
+            case "virtual":
+                eventBus = EventBus.Builder.anEventBus().withVirtualThreads().build();
+                break;
+            default:
+                eventBus = EventBus.Builder.anEventBus().withVirtualThreads().withPartitionedExecutor(VIRTUAL_LANES).build();
+        }
+        eventBus.register(new BlockingListener(received, ioMillis));
+        for (int i = 0; i < KEYS; i++) {
+            events[i] = new BenchEvent(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postBatch() {
+        long expected = received.get() + BATCH;
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(events[i % KEYS]);
+        }
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+
+    /** Blocks for the simulated I/O latency on every event. */
+    public static class BlockingListener {
+        private final AtomicLong received;
+        private final long ioMillis;
+
+        public BlockingListener(AtomicLong received, long ioMillis) {
+            this.received = received;
+            this.ioMillis = ioMillis;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onEvent(BenchEvent event) throws InterruptedException {
+            Thread.sleep(ioMillis);
+            received.incrementAndGet();
+        }
+    }
+}
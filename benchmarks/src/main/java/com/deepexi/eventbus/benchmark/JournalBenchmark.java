@@ -0,0 +1,139 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.journal.EventCodec;
+import com.deepexi.eventbus.journal.Journal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p> throughput of posting to the default asynchronous bus ({@code off}) and to a journaled one
+ * writing to a temporary directory, either returning once the event is in the mapped segment
+ * ({@code mapped}) or once it is forced to disk ({@code fsync}). {@code post} posts events one by one,
+ * so with {@code fsync} every event waits for its own sync; {@code postAll} posts them as one batch,
+ * which waits for a single sync. Each invocation waits until the batch has been handled. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int BATCH = 1000;
+
+    @Param({"off", "mapped", "fsync"})
+    public String journal;
+
+    private final AtomicLong received = new AtomicLong();
+    private final BenchEvent[] events = new BenchEvent[BATCH];
+    private List<BenchEvent> batch;
+    private Path directory;
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            events[i] = new BenchEvent(i);
+        }
+        batch = Arrays.asList(events);
+        if ("off".equals(journal)) {
+            eventBus = new EventBus("journal-off", true);
+        } else {
+            directory = Files.createTempDirectory("eventbus-journal");
+            eventBus = EventBus.Builder.anEventBus()
+                    .withIdentifier("journal-" + journal)
+                    .withJournal(Journal.Builder.aJournal()
+                            .withDirectory(directory)
+                            .withCodec(new BenchEventCodec())
+                            .withSyncOnPost("fsync".equals(journal))
+                            .build())
+                    .build();
+        }
+        eventBus.register(new CountingSubscriber(received));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        eventBus.close();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void post() {
+        long expected = received.get() + BATCH;
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(events[i]);
+        }
+        awaitReceived(expected);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postAll() {
+        long expected = received.get() + BATCH;
+        eventBus.postAll(batch);
+        awaitReceived(expected);
+    }
+
+    private void awaitReceived(long expected) {
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+
+    /** Stores the id of a {@link BenchEvent} in 8 bytes. */
+    public static final class BenchEventCodec implements EventCodec {
+        @Override
+        public byte[] encode(Object event) {
+            return ByteBuffer.allocate(8).putLong(((BenchEvent) event).getId()).array();
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            return new BenchEvent(ByteBuffer.wrap(bytes).getLong());
+        }
+    }
+
+    /** Counts the events it receives. */
+    public static class CountingSubscriber {
+        private final AtomicLong received;
+
+        public CountingSubscriber(AtomicLong received) {
+            this.received = received;
+        }
+
+        @Subscribe
+        public void onEvent(BenchEvent event) {
+            received.incrementAndGet();
+        }
+    }
+}
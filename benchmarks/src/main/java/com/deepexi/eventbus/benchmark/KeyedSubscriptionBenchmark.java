@@ -0,0 +1,79 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> cost of one post on a synchronous bus whose subscribers each want the events of one key, as
+ * their number grows: every subscriber filtering the events itself ({@code filter}), or each one
+ * registered for its key ({@code keyed}) </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyedSubscriptionBenchmark {
+
+    @Param({"100", "1000", "20000"})
+    public int subscribers;
+
+    @Param({"filter", "keyed"})
+    public String subscription;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private EventBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = new EventBus("keyed-subscription", false);
+        AtomicLong received = new AtomicLong();
+        for (long id = 0; id < subscribers; id++) {
+            if ("keyed".equals(subscription)) {
+                bus.register(new CountingListener(received), id);
+            } else {
+                bus.register(new FilteringListener(received, id));
+            }
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+
+    /** Counts the events of its id, and discards the others. */
+    public static class FilteringListener {
+        private final AtomicLong received;
+        private final long id;
+
+        public FilteringListener(AtomicLong received, long id) {
+            this.received = received;
+            this.id = id;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onEvent(BenchEvent event) {
+            if (event.getId() == id) {
+                received.incrementAndGet();
+            }
+        }
+    }
+}
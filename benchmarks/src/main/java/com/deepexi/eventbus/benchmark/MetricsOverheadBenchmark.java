@@ -0,0 +1,66 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.base.MoreExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> the cost of metrics on the cheapest path, a synchronous post to trivial subscribers, where
+ * it weighs the most. The goal is under 5% of throughput. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    @Param({"1", "4"})
+    public int subscribers;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.Builder.anEventBus()
+                .withIdentifier("metrics-overhead")
+                .withExecutor(MoreExecutors.directExecutor())
+                .withMetrics(metrics)
+                .build();
+        AtomicLong received = new AtomicLong();
+        for (int i = 0; i < subscribers; i++) {
+            eventBus.register(new CountingListener(received));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (eventBus.metrics() != null) {
+            eventBus.metrics().unregister();
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        eventBus.post(event);
+    }
+}
@@ -0,0 +1,89 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> throughput of subscribers doing some work per event on the default single-thread bus and on
+ * a bus partitioned by the {@link BenchEvent} id. {@code lanes = 0} stands for the default bus. Each
+ * invocation waits until the batch has been handled. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionedBenchmark {
+    private static final int BATCH = 1000;
+    private static final int KEYS = 64;
+
+    @Param({"0", "2", "4", "8"})
+    public int lanes;
+
+    /** the cost of handling one event, in {@link Blackhole#consumeCPU(long)} tokens **/
+    @Param({"100"})
+    public long work;
+
+    private final AtomicLong received = new AtomicLong();
+    private final BenchEvent[] events = new BenchEvent[KEYS];
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = lanes == 0
+                ? new EventBus("single-thread", true)
+                : EventBus.Builder.anEventBus().withIdentifier("partitioned").withPartitionedExecutor(lanes).build();
+        eventBus.register(new WorkingListener(received, work));
+        for (int i = 0; i < KEYS; i++) {
+            events[i] = new BenchEvent(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postBatch() {
+        long expected = received.get() + BATCH;
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(events[i % KEYS]);
+        }
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+
+    /** Burns some CPU per event. */
+    public static class WorkingListener {
+        private final AtomicLong received;
+        private final long work;
+
+        public WorkingListener(AtomicLong received, long work) {
+            this.received = received;
+            this.work = work;
+        }
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onEvent(BenchEvent event) {
+            Blackhole.consumeCPU(work);
+            received.incrementAndGet();
+        }
+    }
+}
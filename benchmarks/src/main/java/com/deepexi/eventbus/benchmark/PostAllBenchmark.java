@@ -0,0 +1,89 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> a burst of events on the default single-thread bus: posted one by one, posted with
+ * {@link EventBus#postAll(java.util.Collection)}, and received by a batch subscriber. Each
+ * invocation waits until every subscriber has received the whole burst. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostAllBenchmark {
+    private static final int BURST = 1000;
+    private static final int SUBSCRIBERS = 4;
+
+    @Param({"post", "postAll", "batchSubscriber"})
+    public String mode;
+
+    private final AtomicLong received = new AtomicLong();
+    private final List<BenchEvent> burst = new ArrayList<>(BURST);
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = new EventBus("post-all", true);
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            eventBus.register("batchSubscriber".equals(mode)
+                    ? new BatchListener(received)
+                    : new CountingListener(received));
+        }
+        for (int i = 0; i < BURST; i++) {
+            burst.add(new BenchEvent(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void postBurst() {
+        long expected = received.get() + (long) BURST * SUBSCRIBERS;
+        if ("post".equals(mode)) {
+            for (BenchEvent event : burst) {
+                eventBus.post(event);
+            }
+        } else {
+            eventBus.postAll(burst);
+        }
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+
+    /** Receives the events in batches of at most 100. */
+    public static class BatchListener {
+        private final AtomicLong received;
+
+        public BatchListener(AtomicLong received) {
+            this.received = received;
+        }
+
+        @Subscribe(batchSize = 100, batchWaitMillis = 1)
+        @AllowConcurrentEvents
+        public void onEvents(List<BenchEvent> events) {
+            received.addAndGet(events.size());
+        }
+    }
+}
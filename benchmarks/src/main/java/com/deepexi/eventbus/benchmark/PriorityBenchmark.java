@@ -0,0 +1,121 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.constant.Priority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p> latency of a high priority subscriber on a bus kept saturated with low priority events, on the
+ * default single-thread bus ({@code fifo}) and on a bus with priority scheduling. A background thread
+ * keeps {@link #backlog} low priority events queued; each invocation posts one high priority event and
+ * waits until it has been handled, so the sample percentiles are the p50/p99 of that wait. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityBenchmark {
+
+    @Param({"fifo", "priority"})
+    public String scheduling;
+
+    /** the number of low priority events kept queued **/
+    @Param({"1000"})
+    public int backlog;
+
+    /** the cost of handling one low priority event, in {@link Blackhole#consumeCPU(long)} tokens **/
+    @Param({"100"})
+    public long work;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean running;
+    private EventBus eventBus;
+    private Thread feeder;
+
+    @Setup
+    public void setUp() {
+        eventBus = "fifo".equals(scheduling)
+                ? new EventBus("fifo", true)
+                : EventBus.Builder.anEventBus().withIdentifier("priority").withPriorityScheduling(1).build();
+        eventBus.register(new MixedListener(inFlight, work));
+        running = true;
+        feeder = new Thread(this::feed, "low-priority-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+        while (inFlight.get() < backlog / 2) {
+            Thread.yield();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        running = false;
+        feeder.join();
+    }
+
+    @Benchmark
+    public void postUrgent() throws InterruptedException {
+        UrgentEvent event = new UrgentEvent();
+        eventBus.post(event);
+        event.handled.await();
+    }
+
+    private void feed() {
+        BenchEvent event = new BenchEvent(0);
+        while (running) {
+            if (inFlight.get() < backlog) {
+                inFlight.incrementAndGet();
+                eventBus.post(event);
+            } else {
+                LockSupport.parkNanos(100_000L);
+            }
+        }
+    }
+
+    /** An event handled ahead of the backlog when the bus schedules by priority. */
+    public static class UrgentEvent {
+        final CountDownLatch handled = new CountDownLatch(1);
+    }
+
+    /** Burns some CPU per low priority event and releases the waiter of each urgent one. */
+    public static class MixedListener {
+        private final AtomicInteger inFlight;
+        private final long work;
+
+        public MixedListener(AtomicInteger inFlight, long work) {
+            this.inFlight = inFlight;
+            this.work = work;
+        }
+
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void onEvent(BenchEvent event) {
+            Blackhole.consumeCPU(work);
+            inFlight.decrementAndGet();
+        }
+
+        @Subscribe(priority = Priority.XXL_LEVEL)
+        public void onUrgent(UrgentEvent event) {
+            event.handled.countDown();
+        }
+    }
+}
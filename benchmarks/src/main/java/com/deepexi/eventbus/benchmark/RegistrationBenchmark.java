@@ -0,0 +1,58 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> cost of registering and unregistering a listener next to a number of already registered
+ * listeners of the same event type </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Param({"0", "100", "1000"})
+    public int registered;
+
+    private final AtomicLong received = new AtomicLong();
+    private EventBus bus;
+
+    /** A fresh bus per iteration, so listeners kept by the registry do not pile up across iterations. */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bus = new EventBus("registration", false);
+        for (int i = 0; i < registered; i++) {
+            bus.register(new CountingListener(received));
+        }
+    }
+
+    @Benchmark
+    public void register() {
+        bus.register(new CountingListener(received));
+    }
+
+    @Benchmark
+    public void registerAndUnregister() {
+        CountingListener listener = new CountingListener(received);
+        bus.register(listener);
+        bus.unregister(listener);
+    }
+}
@@ -0,0 +1,61 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> posting from several threads on a synchronous bus while another thread keeps registering
+ * and unregistering listeners of the same event type </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryChurnBenchmark {
+    private static final int STABLE_LISTENERS = 16;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private final AtomicLong received = new AtomicLong();
+    private EventBus bus;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bus = new EventBus("churn", false);
+        for (int i = 0; i < STABLE_LISTENERS; i++) {
+            bus.register(new CountingListener(received));
+        }
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(3)
+    public void post() {
+        bus.post(event);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public void registerAndUnregister() {
+        CountingListener listener = new CountingListener(received);
+        bus.register(listener);
+        bus.unregister(listener);
+    }
+}
@@ -0,0 +1,118 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Retry;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p> latency of a healthy event posted right after one whose subscriber fails twice before it
+ * succeeds, on the default single-thread bus. With {@code inline} the subscriber retries in a loop,
+ * sleeping one millisecond, then two, between attempts on the dispatch thread; with {@code scheduled}
+ * it is annotated with {@link Retry} and the bus waits out the backoff off the dispatch thread.
+ * Each invocation waits until the healthy event is handled. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RetryBenchmark {
+
+    private static final long BACKOFF_MILLIS = 1L;
+
+    @Param({"inline", "scheduled"})
+    public String retry;
+
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = EventBus.Builder.anEventBus().withIdentifier("retry").withDeadLetters(16).withMetrics(false).build();
+        long backoffNanos = TimeUnit.MILLISECONDS.toNanos(BACKOFF_MILLIS);
+        eventBus.register("inline".equals(retry) ? new InlineRetryListener(backoffNanos) : new ScheduledRetryListener());
+        eventBus.register(new HealthyListener());
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.close();
+    }
+
+    @Benchmark
+    public void postAfterFailure() throws InterruptedException {
+        HealthyEvent event = new HealthyEvent();
+        eventBus.post(new FlakyEvent());
+        eventBus.post(event);
+        event.handled.await();
+    }
+
+    /** An event failing on its first two attempts. */
+    public static class FlakyEvent {
+        int attempts;
+
+        void attempt() {
+            if (++attempts <= 2) {
+                throw new IllegalStateException("attempt " + attempts + " failed");
+            }
+        }
+    }
+
+    public static class HealthyEvent {
+        final CountDownLatch handled = new CountDownLatch(1);
+    }
+
+    /** Retries on the dispatch thread, as subscribers do without {@link Retry}. */
+    public static class InlineRetryListener {
+        private final long backoffNanos;
+
+        public InlineRetryListener(long backoffNanos) {
+            this.backoffNanos = backoffNanos;
+        }
+
+        @Subscribe
+        public void onFlaky(FlakyEvent event) {
+            long backoff = backoffNanos;
+            while (true) {
+                try {
+                    event.attempt();
+                    return;
+                } catch (IllegalStateException e) {
+                    LockSupport.parkNanos(backoff);
+                    backoff *= 2;
+                }
+            }
+        }
+    }
+
+    public static class ScheduledRetryListener {
+        @Subscribe
+        @Retry(maxAttempts = 3, backoffMillis = BACKOFF_MILLIS)
+        public void onFlaky(FlakyEvent event) {
+            event.attempt();
+        }
+    }
+
+    public static class HealthyListener {
+        @Subscribe
+        public void onHealthy(HealthyEvent event) {
+            event.handled.countDown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> startup time of registering {@link #listeners} listeners of the same event type on a fresh bus
+ * that has already posted that type, one by one with {@code register} and at once with {@code
+ * registerAll}, and of unregistering them again. Each invocation starts from a new bus. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupRegistrationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int listeners;
+
+    private final AtomicLong received = new AtomicLong();
+    private final List<CountingListener> toRegister = new ArrayList<>();
+    private EventBus bus;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        bus = new EventBus("startup", false);
+        // the event class is resolved, so that every registration has to republish it
+        bus.post(new BenchEvent(0));
+        toRegister.clear();
+        for (int i = 0; i < listeners; i++) {
+            toRegister.add(new CountingListener(received));
+        }
+    }
+
+    @Benchmark
+    public EventBus registerOneByOne() {
+        for (CountingListener listener : toRegister) {
+            bus.register(listener);
+        }
+        return bus;
+    }
+
+    @Benchmark
+    public EventBus registerAll() {
+        bus.registerAll(toRegister);
+        return bus;
+    }
+
+    @Benchmark
+    public EventBus registerAndUnregisterOneByOne() {
+        for (CountingListener listener : toRegister) {
+            bus.register(listener);
+        }
+        for (CountingListener listener : toRegister) {
+            bus.unregister(listener);
+        }
+        return bus;
+    }
+
+    @Benchmark
+    public EventBus registerAllAndUnregisterAll() {
+        bus.registerAll(toRegister);
+        bus.unregisterAll(toRegister);
+        return bus;
+    }
+}
@@ -0,0 +1,83 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.AsyncEventBus;
+import com.deepexi.eventbus.EventBus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> end-to-end throughput of a synchronous bus, the default single-thread bus and an
+ * {@link AsyncEventBus} on a pool: each invocation posts a batch and waits until every subscriber
+ * has received it, so queues never grow without bound </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncVsAsyncBenchmark {
+    private static final int BATCH = 1000;
+    private static final int SUBSCRIBERS = 4;
+
+    @Param({"sync", "oneThread", "asyncPool"})
+    public String bus;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private final AtomicLong received = new AtomicLong();
+    private EventBus eventBus;
+    private ExecutorService pool;
+
+    @Setup
+    public void setUp() {
+        switch (bus) {
+            case "sync":
+                eventBus = new EventBus("sync", false);
+                break;
+            case "oneThread":
+                eventBus = new EventBus("one-thread", true);
+                break;
+            default:
+                pool = Executors.newFixedThreadPool(SUBSCRIBERS);
+                eventBus = new AsyncEventBus("async-pool", pool);
+        }
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            eventBus.register(new CountingListener(received));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postBatch() {
+        long expected = received.get() + (long) BATCH * SUBSCRIBERS;
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(event);
+        }
+        while (received.get() < expected) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.constant.Priority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p> latency of one event handled by three tiers of four subscribers each, every call blocking for
+ * {@link #callMicros}, on the default single-thread bus ({@code sequential}) and on a bus with
+ * parallel tiers. Each invocation posts one event and waits until its last subscriber is done: about
+ * twelve calls in sequence against three, one per tier. </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TieredDispatchBenchmark {
+    private static final int SUBSCRIBERS_PER_TIER = 4;
+
+    @Param({"sequential", "tiered"})
+    public String dispatch;
+
+    /** how long each call blocks, as if waiting on I/O **/
+    @Param({"100"})
+    public long callMicros;
+
+    private EventBus eventBus;
+
+    @Setup
+    public void setUp() {
+        eventBus = "sequential".equals(dispatch)
+                ? new EventBus("sequential", true)
+                : EventBus.Builder.anEventBus().withIdentifier("tiered").withParallelTiers(SUBSCRIBERS_PER_TIER).build();
+        eventBus.register(new TieredListener(TimeUnit.MICROSECONDS.toNanos(callMicros)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventBus.close();
+    }
+
+    @Benchmark
+    public void post() throws InterruptedException {
+        TieredEvent event = new TieredEvent();
+        eventBus.post(event);
+        event.handled.await();
+    }
+
+    /** An event counting down once per subscriber. */
+    public static class TieredEvent {
+        final CountDownLatch handled = new CountDownLatch(3 * SUBSCRIBERS_PER_TIER);
+    }
+
+    /** Four independent subscribers in each of three priority tiers. */
+    public static class TieredListener {
+        private final long callNanos;
+
+        public TieredListener(long callNanos) {
+            this.callNanos = callNanos;
+        }
+
+        private void call(TieredEvent event) {
+            LockSupport.parkNanos(callNanos);
+            event.handled.countDown();
+        }
+
+        @Subscribe(priority = Priority.L_LEVEL)
+        public void high1(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.L_LEVEL)
+        public void high2(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.L_LEVEL)
+        public void high3(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.L_LEVEL)
+        public void high4(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.M_LEVEL)
+        public void medium1(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.M_LEVEL)
+        public void medium2(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.M_LEVEL)
+        public void medium3(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.M_LEVEL)
+        public void medium4(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void low1(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void low2(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void low3(TieredEvent event) { call(event); }
+
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void low4(TieredEvent event) { call(event); }
+    }
+}
@@ -0,0 +1,108 @@
+package com.deepexi.eventbus.benchmark;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
+import com.deepexi.eventbus.annotation.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> cost of one post to a topic on a synchronous bus as the number of subscribers of other
+ * patterns grows, with a single matching subscriber: {@code cached} posts to the same topic each
+ * time, {@code uncached} to a new topic each time, so the trie is walked on every post </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicBenchmark {
+
+    @Param({"10", "1000", "20000"})
+    public int others;
+
+    private final BenchEvent event = new BenchEvent(1L);
+    private final AtomicLong received = new AtomicLong();
+    private String[] topics;
+    private int next;
+    private EventBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = new EventBus("topic", false);
+        bus.register(new CreatedListener(received));
+        for (int i = 0; i < others; i++) {
+            bus.register(new OtherListeners(received));
+        }
+        topics = new String[1 << 17];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = "orders.region" + i + ".created";
+        }
+    }
+
+    @Benchmark
+    public void cached() {
+        bus.post("orders.eu.created", event);
+    }
+
+    @Benchmark
+    public void uncached() {
+        // more topics than the cache holds, each one is resolved again
+        bus.post(topics[next++ & (topics.length - 1)], event);
+    }
+
+    /** Subscribes to the creation of orders in any region. */
+    public static class CreatedListener {
+        private final AtomicLong received;
+
+        public CreatedListener(AtomicLong received) {
+            this.received = received;
+        }
+
+        @Subscribe(topic = "orders.*.created")
+        @AllowConcurrentEvents
+        public void onEvent(BenchEvent event) {
+            received.incrementAndGet();
+        }
+    }
+
+    /** Subscribes to patterns nobody posts to. */
+    public static class OtherListeners {
+        private final AtomicLong received;
+
+        public OtherListeners(AtomicLong received) {
+            this.received = received;
+        }
+
+        @Subscribe(topic = "payments.#")
+        @AllowConcurrentEvents
+        public void onPayment(BenchEvent event) {
+            received.incrementAndGet();
+        }
+
+        @Subscribe(topic = "orders.*.deleted")
+        @AllowConcurrentEvents
+        public void onDeleted(BenchEvent event) {
+            received.incrementAndGet();
+        }
+
+        @Subscribe(topic = "orders.eu.updated")
+        @AllowConcurrentEvents
+        public void onUpdated(BenchEvent event) {
+            received.incrementAndGet();
+        }
+    }
+}
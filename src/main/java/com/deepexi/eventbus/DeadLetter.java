@@ -0,0 +1,67 @@
+package com.deepexi.eventbus;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> an event a subscriber annotated with {@link com.deepexi.eventbus.annotation.Retry} still
+ * threw on at its last attempt, kept in the {@link DeadLetterStore} of its bus. </p>
+ *
+ * <p>Unlike a {@link DeadEvent}, which nobody subscribed to, a dead letter belongs to one
+ * subscriber: {@linkplain DeadLetterStore#replay() replaying} it calls that subscriber again,
+ * and no other.
+ */
+public final class DeadLetter {
+    private final Object event;
+    private final Subscriber subscriber;
+    private final int attempts;
+    private final Throwable cause;
+    private final long timestamp;
+
+    DeadLetter(Object event, Subscriber subscriber, int attempts, Throwable cause) {
+        this.event = checkNotNull(event);
+        this.subscriber = checkNotNull(subscriber);
+        this.attempts = attempts;
+        this.cause = checkNotNull(cause);
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /** Returns the event the subscriber failed on, a {@code List} of events for a batch subscriber. */
+    public Object getEvent() {
+        return event;
+    }
+
+    /** Returns the name of the subscriber, see {@link com.deepexi.eventbus.annotation.Subscribe#name()}. */
+    public String getSubscriberName() {
+        return subscriber.getSubscribeMethod().getName();
+    }
+
+    /** Returns the subscribed method that failed. */
+    public SubscribeMethod getSubscribeMethod() {
+        return subscriber.getSubscribeMethod();
+    }
+
+    /** Returns how many times the subscriber was called with the event. */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /** Returns what the subscriber threw at its last attempt. */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    /** Returns when the event was given up on, in milliseconds since the epoch. */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    Subscriber subscriber() {
+        return subscriber;
+    }
+
+    @Override
+    public String toString() {
+        return "subscriber: " + getSubscriberName() + ", attempts: " + attempts + ", cause: " + cause
+                + ", event: " + event;
+    }
+}
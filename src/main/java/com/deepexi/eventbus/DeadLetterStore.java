@@ -0,0 +1,190 @@
+package com.deepexi.eventbus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> the {@link DeadLetter}s of a bus built with {@link EventBus.Builder#withDeadLetters(int)}:
+ * the events its subscribers annotated with {@link com.deepexi.eventbus.annotation.Retry} were
+ * given up on, oldest first. </p>
+ *
+ * <p>At most {@link #capacity()} dead letters are kept, a new one beyond that evicts the oldest.
+ * The store counts the dead letters it received, in all and per subscriber name, those it evicted
+ * and those it replayed, until {@link #resetCounts()}. Replaying a dead letter removes it from the
+ * store and dispatches its event again to its subscriber alone, with all of its attempts; the
+ * subscriber's executor runs it, the calling thread on a synchronous bus.
+ *
+ * <p>This class is safe for concurrent use.
+ */
+public final class DeadLetterStore {
+    private static final Logger LOGGER = Logger.getLogger(DeadLetterStore.class.getName());
+
+    private final int capacity;
+
+    /** Guarded by this, oldest first. */
+    private final ArrayDeque<DeadLetter> deadLetters = new ArrayDeque<>();
+
+    /** The dead letters received per subscriber name, guarded by this. */
+    private final Map<String, Long> countsBySubscriber = new TreeMap<>();
+
+    /** Guarded by this. */
+    private long deadLetterCount;
+    private long evictedCount;
+    private long replayedCount;
+
+    DeadLetterStore(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /** Keeps {@code deadLetter}, evicting the oldest one if the store is full. */
+    void add(DeadLetter deadLetter) {
+        DeadLetter evicted = null;
+        synchronized (this) {
+            if (deadLetters.size() == capacity) {
+                evicted = deadLetters.pollFirst();
+                evictedCount++;
+            }
+            deadLetters.addLast(deadLetter);
+            deadLetterCount++;
+            countsBySubscriber.merge(deadLetter.getSubscriberName(), 1L, Long::sum);
+        }
+        if (evicted != null && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Dead letter store is full, evicted " + evicted);
+        }
+    }
+
+    /** Returns the largest number of dead letters kept. */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Returns the number of dead letters kept. */
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+    /** Returns the dead letters kept, oldest first. */
+    public synchronized List<DeadLetter> deadLetters() {
+        return Collections.unmodifiableList(new ArrayList<>(deadLetters));
+    }
+
+    /** Returns the number of dead letters received, including those evicted or replayed since. */
+    public synchronized long deadLetterCount() {
+        return deadLetterCount;
+    }
+
+    /** Returns the number of dead letters evicted by newer ones. */
+    public synchronized long evictedCount() {
+        return evictedCount;
+    }
+
+    /** Returns the number of dead letters replayed to their subscriber. */
+    public synchronized long replayedCount() {
+        return replayedCount;
+    }
+
+    /** Returns the number of dead letters received per subscriber name, sorted by name. */
+    public synchronized Map<String, Long> countsBySubscriber() {
+        return Collections.unmodifiableMap(new TreeMap<>(countsBySubscriber));
+    }
+
+    /** Resets the counts to zero, the dead letters kept stay. */
+    public synchronized void resetCounts() {
+        deadLetterCount = 0L;
+        evictedCount = 0L;
+        replayedCount = 0L;
+        countsBySubscriber.clear();
+    }
+
+    /**
+     * Replays all the dead letters kept, oldest first.
+     *
+     * @return the number of dead letters replayed, not counting those whose listener was
+     *     unregistered since, which are dropped.
+     */
+    public int replay() {
+        return replay(deadLetter -> true);
+    }
+
+    /**
+     * Replays the dead letters {@code filter} accepts, oldest first, and keeps the others.
+     *
+     * @return the number of dead letters replayed, not counting those whose listener was
+     *     unregistered since, which are dropped.
+     */
+    public int replay(Predicate<? super DeadLetter> filter) {
+        checkNotNull(filter);
+        List<DeadLetter> taken = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<DeadLetter> it = deadLetters.iterator(); it.hasNext(); ) {
+                DeadLetter deadLetter = it.next();
+                if (filter.test(deadLetter)) {
+                    it.remove();
+                    taken.add(deadLetter);
+                }
+            }
+        }
+        int replayed = 0;
+        try {
+            for (int i = 0; i < taken.size(); i++) {
+                try {
+                    if (taken.get(i).subscriber().redeliver(taken.get(i))) {
+                        replayed++;
+                    }
+                } catch (RuntimeException e) {
+                    // refused by the executor, the dead letters not replayed yet go back to the store
+                    restore(taken.subList(i, taken.size()));
+                    throw e;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                replayedCount += replayed;
+            }
+        }
+        return replayed;
+    }
+
+    /** Puts back {@code taken} ahead of the dead letters received meanwhile, evicting the oldest beyond capacity. */
+    private synchronized void restore(List<DeadLetter> taken) {
+        for (int i = taken.size() - 1; i >= 0; i--) {
+            deadLetters.addFirst(taken.get(i));
+        }
+        while (deadLetters.size() > capacity) {
+            deadLetters.pollFirst();
+            evictedCount++;
+        }
+    }
+
+    /** Removes {@code deadLetter} without replaying it, and returns whether it was kept. */
+    public synchronized boolean remove(DeadLetter deadLetter) {
+        return deadLetters.remove(deadLetter);
+    }
+
+    /** Removes all the dead letters kept, and returns how many there were. */
+    public synchronized int clear() {
+        int cleared = deadLetters.size();
+        deadLetters.clear();
+        return cleared;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DeadLetterStore{size=" + deadLetters.size() + ", capacity=" + capacity
+                + ", deadLetterCount=" + deadLetterCount + ", evictedCount=" + evictedCount
+                + ", replayedCount=" + replayedCount + '}';
+    }
+}
@@ -17,8 +17,10 @@ package com.deepexi.eventbus;
 import com.deepexi.eventbus.base.Collections;
 import com.deepexi.eventbus.base.Preconditions;
 
-import java.util.Iterator;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
@@ -68,52 +70,221 @@ abstract class Dispatcher {
     return ImmediateDispatcher.INSTANCE;
   }
 
-  /** Dispatches the given {@code event} to the given {@code subscribers}. */
-  abstract void dispatch(Object event, Iterator<Subscriber> subscribers);
+  /**
+   * Returns a dispatcher that passes events to a dedicated consumer thread through a preallocated
+   * ring of {@code bufferSize} slots (rounded up to a power of two). Posting waits while the ring
+   * is full. Events are dispatched on the consumer thread in the order they were posted, so this
+   * is usually combined with a {@linkplain com.deepexi.eventbus.base.MoreExecutors#directExecutor()
+   * direct} executor, which calls subscribers right on that thread.
+   */
+  static Dispatcher ringBuffer(String identifier, int bufferSize) {
+    return new RingBufferDispatcher(identifier, bufferSize);
+  }
+
+  /**
+   * Returns a dispatcher that dispatches events in order on a dedicated thread, calling the
+   * subscribers of equal priority concurrently on a fork-join pool of {@code parallelism} threads,
+   * one priority tier after the other. It is meant to be combined with a {@linkplain
+   * com.deepexi.eventbus.base.MoreExecutors#directExecutor() direct} executor, which calls
+   * subscribers right on the threads of the tier.
+   */
+  static Dispatcher tiered(String identifier, int parallelism) {
+    return new TieredDispatcher(identifier, parallelism);
+  }
+
+  /**
+   * Dispatches the given {@code event} to the given {@code subscribers}. The array is a snapshot
+   * owned by the registry and must not be modified.
+   */
+  abstract void dispatch(Object event, Subscriber[] subscribers);
+
+  /**
+   * Dispatches a batch of events, {@code subscribers[i]} being the snapshot of the subscribers of
+   * {@code events[i]}. By default each subscriber receives all of its events, in the order they
+   * appear in the batch, in a single hand-off to its executor; subscribers are handed off from the
+   * highest priority to the lowest.
+   */
+  void dispatchAll(Object[] events, Subscriber[][] subscribers) {
+    dispatchGrouped(events, subscribers);
+  }
+
+  /**
+   * Dispatches {@code event} to {@code subscribers} as part of {@code request}, see {@link
+   * Subscriber#dispatchRequest(Object, Request)}. By default each subscriber is handed the event
+   * right away, bypassing any queue of the dispatcher: a request is answered, not ordered among
+   * posts.
+   */
+  void dispatchRequest(Object event, Subscriber[] subscribers, Request request) {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.dispatchRequest(event, request);
+    }
+  }
+
+  /** Returns the number of events waiting to be dispatched to their subscribers, if known. */
+  int backlog() {
+    return 0;
+  }
+
+  /** Releases what the dispatcher holds outside of the bus, see {@link EventBus#close()}. */
+  void close() {
+  }
+
+  /** Groups a batch of events by subscriber and hands each group off at once. */
+  static void dispatchGrouped(Object[] events, Subscriber[][] subscribers) {
+    for (Map.Entry<Subscriber, List<Object>> group : groupBySubscriber(events, subscribers)) {
+      group.getKey().dispatchEvents(group.getValue());
+    }
+  }
+
+  /**
+   * Groups a batch of events by subscriber, each group keeping the order of its events in the
+   * batch, and sorts the groups from the highest priority to the lowest.
+   */
+  static List<Map.Entry<Subscriber, List<Object>>> groupBySubscriber(Object[] events, Subscriber[][] subscribers) {
+    Map<Subscriber, List<Object>> eventsBySubscriber = new LinkedHashMap<>();
+    for (int i = 0; i < events.length; i++) {
+      for (Subscriber subscriber : subscribers[i]) {
+        eventsBySubscriber.computeIfAbsent(subscriber, s -> new ArrayList<>()).add(events[i]);
+      }
+    }
+    List<Map.Entry<Subscriber, List<Object>>> groups = new ArrayList<>(eventsBySubscriber.entrySet());
+    // List.sort is stable, subscribers of the same priority keep the order they were first met in
+    groups.sort((g1, g2) -> Integer.compare(
+        g2.getKey().getSubscribeMethod().getPriority(), g1.getKey().getSubscribeMethod().getPriority()));
+    return groups;
+  }
 
   /** Implementation of a {@link #perThreadDispatchQueue()} dispatcher. */
   private static final class PerThreadQueuedDispatcher extends Dispatcher {
 
     // This dispatcher matches the original dispatch behavior of EventBus.
+    //
+    // The per-thread queue is kept for the lifetime of the thread and its entries are stored in
+    // parallel arrays, so that a post allocates nothing once the queue has grown to the thread's
+    // deepest reentrant posting.
 
-    /** Per-thread queue of events to dispatch. */
-    private final ThreadLocal<Queue<Event>> queue =
-            ThreadLocal.withInitial(Collections::newArrayDeque);
-
-    /** Per-thread dispatch state, used to avoid reentrant event dispatching. */
-    private final ThreadLocal<Boolean> dispatching =
-            ThreadLocal.withInitial(() -> false);
+    /** Per-thread queue of events to dispatch, along with the dispatching flag of the thread. */
+    private final ThreadLocal<EventQueue> queue = ThreadLocal.withInitial(EventQueue::new);
 
     @Override
-    void dispatch(Object event, Iterator<Subscriber> subscribers) {
+    void dispatch(Object event, Subscriber[] subscribers) {
       Preconditions.checkNotNull(event);
       Preconditions.checkNotNull(subscribers);
-      Queue<Event> queueForThread = queue.get();
-      queueForThread.offer(new Event(event, subscribers));
+      EventQueue queueForThread = queue.get();
+      queueForThread.offer(event, subscribers);
 
-      if (!dispatching.get()) {
-        dispatching.set(true);
+      // avoid reentrant event dispatching
+      if (!queueForThread.dispatching) {
+        queueForThread.dispatching = true;
         try {
-          Event nextEvent;
-          while ((nextEvent = queueForThread.poll()) != null) {
-            while (nextEvent.subscribers.hasNext()) {
-              nextEvent.subscribers.next().dispatchEvent(nextEvent.event);
-            }
-          }
+          drain(queueForThread);
         } finally {
-          dispatching.remove();
-          queue.remove();
+          queueForThread.dispatching = false;
+          queueForThread.clear();
         }
       }
     }
 
-    private static final class Event {
-      private final Object event;
-      private final Iterator<Subscriber> subscribers;
+    /**
+     * Hands the batch off grouped by subscriber, unless this thread is already dispatching: the
+     * events are then queued one by one behind the events posted before them.
+     */
+    @Override
+    void dispatchAll(Object[] events, Subscriber[][] subscribers) {
+      EventQueue queueForThread = queue.get();
+      if (queueForThread.dispatching) {
+        for (int i = 0; i < events.length; i++) {
+          queueForThread.offer(Preconditions.checkNotNull(events[i]), subscribers[i]);
+        }
+        return;
+      }
+      queueForThread.dispatching = true;
+      try {
+        dispatchGrouped(events, subscribers);
+        // events posted by subscribers while the batch was delivered
+        drain(queueForThread);
+      } finally {
+        queueForThread.dispatching = false;
+        queueForThread.clear();
+      }
+    }
 
-      private Event(Object event, Iterator<Subscriber> subscribers) {
-        this.event = event;
-        this.subscribers = subscribers;
+    private static void drain(EventQueue queueForThread) {
+      while (!queueForThread.isEmpty()) {
+        Object nextEvent = queueForThread.peekEvent();
+        Subscriber[] nextSubscribers = queueForThread.peekSubscribers();
+        queueForThread.removeFirst();
+        for (Subscriber subscriber : nextSubscribers) {
+          subscriber.dispatchEvent(nextEvent);
+        }
+      }
+    }
+
+    /** A FIFO of (event, subscribers) pairs backed by two circular arrays. */
+    private static final class EventQueue {
+      private static final int INITIAL_CAPACITY = 16;
+      /** A queue that grew past this capacity is shrunk back once it is drained. */
+      private static final int MAX_RETAINED_CAPACITY = 1024;
+
+      private Object[] events = new Object[INITIAL_CAPACITY];
+      private Subscriber[][] subscribers = new Subscriber[INITIAL_CAPACITY][];
+      private int head;
+      private int size;
+      private boolean dispatching;
+
+      void offer(Object event, Subscriber[] eventSubscribers) {
+        if (size == events.length) {
+          grow();
+        }
+        int tail = (head + size) & (events.length - 1);
+        events[tail] = event;
+        subscribers[tail] = eventSubscribers;
+        size++;
+      }
+
+      boolean isEmpty() {
+        return size == 0;
+      }
+
+      Object peekEvent() {
+        return events[head];
+      }
+
+      Subscriber[] peekSubscribers() {
+        return subscribers[head];
+      }
+
+      void removeFirst() {
+        events[head] = null;
+        subscribers[head] = null;
+        head = (head + 1) & (events.length - 1);
+        size--;
+      }
+
+      void clear() {
+        if (events.length > MAX_RETAINED_CAPACITY) {
+          events = new Object[INITIAL_CAPACITY];
+          subscribers = new Subscriber[INITIAL_CAPACITY][];
+        } else {
+          while (size > 0) {
+            removeFirst();
+          }
+        }
+        head = 0;
+        size = 0;
+      }
+
+      private void grow() {
+        Object[] newEvents = new Object[events.length << 1];
+        Subscriber[][] newSubscribers = new Subscriber[events.length << 1][];
+        for (int i = 0; i < size; i++) {
+          int index = (head + i) & (events.length - 1);
+          newEvents[i] = events[index];
+          newSubscribers[i] = subscribers[index];
+        }
+        events = newEvents;
+        subscribers = newSubscribers;
+        head = 0;
       }
     }
   }
@@ -144,10 +315,10 @@ abstract class Dispatcher {
         Collections.newConcurrentLinkedQueue();
 
     @Override
-    void dispatch(Object event, Iterator<Subscriber> subscribers) {
+    void dispatch(Object event, Subscriber[] subscribers) {
       Preconditions.checkNotNull(event);
-      while (subscribers.hasNext()) {
-        queue.add(new EventWithSubscriber(event, subscribers.next()));
+      for (Subscriber subscriber : subscribers) {
+        queue.add(new EventWithSubscriber(event, subscriber));
       }
 
       EventWithSubscriber e;
@@ -171,10 +342,10 @@ abstract class Dispatcher {
   private static final class ImmediateDispatcher extends Dispatcher {
     private static final ImmediateDispatcher INSTANCE = new ImmediateDispatcher();
     @Override
-    void dispatch(Object event, Iterator<Subscriber> subscribers) {
+    void dispatch(Object event, Subscriber[] subscribers) {
       Preconditions.checkNotNull(event);
-      while (subscribers.hasNext()) {
-        subscribers.next().dispatchEvent(event);
+      for (Subscriber subscriber : subscribers) {
+        subscriber.dispatchEvent(event);
       }
     }
   }
@@ -14,12 +14,23 @@
 
 package com.deepexi.eventbus;
 
+import com.deepexi.eventbus.base.BackpressureExecutor;
+import com.deepexi.eventbus.base.BackpressurePolicy;
 import com.deepexi.eventbus.base.MoreExecutors;
+import com.deepexi.eventbus.base.PartitionedExecutor;
 import com.deepexi.eventbus.base.Preconditions;
+import com.deepexi.eventbus.journal.Journal;
+import com.deepexi.eventbus.metrics.EventBusMetrics;
+import com.deepexi.eventbus.util.EventKeys;
 
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -67,8 +78,9 @@ import java.util.logging.Logger;
  *
  * <p>The EventBus guarantees that it will not call a subscriber method from multiple threads
  * simultaneously, unless the method explicitly allows it by bearing the {@link
- * com.deepexi.eventbus.annotation.AllowConcurrentEvents} annotation. If this annotation is not present, subscriber methods need not
- * worry about being reentrant, unless also called from outside the EventBus.
+ * com.deepexi.eventbus.annotation.AllowConcurrentEvents} annotation. If this annotation is not
+ * present, subscriber methods need not worry about being reentrant, unless also called from outside
+ * the EventBus.
  *
  * <h2>Dead Events</h2>
  *
@@ -81,6 +93,9 @@ import java.util.logging.Logger;
  * extends {@link Object}, a subscriber registered to receive any Object will never receive a
  * DeadEvent.
  *
+ * <p>Beyond this, {@link Builder} configures how a bus queues, orders and retries the calls of its
+ * subscribers, and which events it keeps.
+ *
  * <p>This class is safe for concurrent use.
  *
  * <p>See the Guava User Guide article on <a
@@ -96,6 +111,10 @@ public class EventBus {
     private final String identifier;
     private final Executor executor;
     private final SubscriberExceptionHandler exceptionHandler;
+    private final Function<Object, ?> partitionKeyFunction;
+    private final EventBusMetrics metrics;
+    private final StickyEvents stickyEvents;
+    private final DeadLetterStore deadLetters;
 
     private final SubscriberRegistry subscribers = new SubscriberRegistry(this);
     private final Dispatcher dispatcher;
@@ -114,6 +133,15 @@ public class EventBus {
     /**
      * Creates a new EventBus with the given {@code identifier}.
      *
+     * <p>A synchronous bus, i.e. one created with {@code newThreadExecutor} false or any bus whose
+     * executor is {@link MoreExecutors#directExecutor()}, allocates nothing when an event is posted
+     * to subscribers that are already registered: the subscriber snapshot is a cached array, the
+     * per-thread dispatch queue is reused, subscribers are called without wrapping the call in a
+     * task and the trace of each call is only built when {@code FINE} logging is enabled. This holds
+     * in steady state, once the event class has been posted once and as long as subscriber methods
+     * are public (or otherwise reachable through a method handle) and do not throw. Posting an event
+     * nobody subscribes to still allocates its {@link DeadEvent}.
+     *
      * @param identifier a brief name for this bus, for logging purposes. Should be a valid Java
      *     identifier.
      */
@@ -144,10 +172,36 @@ public class EventBus {
             Executor executor,
             Dispatcher dispatcher,
             SubscriberExceptionHandler exceptionHandler) {
+        this(identifier, executor, dispatcher, exceptionHandler, EventKeys::keyOf, true, true, null, null);
+    }
+
+    EventBus(
+            String identifier,
+            Executor executor,
+            Dispatcher dispatcher,
+            SubscriberExceptionHandler exceptionHandler,
+            Function<Object, ?> partitionKeyFunction,
+            boolean metricsEnabled,
+            boolean jmxEnabled,
+            @Nullable StickyEvents stickyEvents,
+            @Nullable DeadLetterStore deadLetters) {
         this.identifier = Preconditions.checkNotNull(identifier);
         this.executor = Preconditions.checkNotNull(executor);
         this.dispatcher = Preconditions.checkNotNull(dispatcher);
         this.exceptionHandler = Preconditions.checkNotNull(exceptionHandler);
+        this.partitionKeyFunction = Preconditions.checkNotNull(partitionKeyFunction);
+        this.stickyEvents = stickyEvents;
+        this.deadLetters = deadLetters;
+        if (metricsEnabled) {
+            // the queue depth must not capture this bus, the MBean server keeps it
+            this.metrics = new EventBusMetrics(identifier,
+                    () -> dispatcher.backlog() + MoreExecutors.queueSize(executor));
+            if (jmxEnabled) {
+                this.metrics.register();
+            }
+        } else {
+            this.metrics = null;
+        }
     }
 
     /**
@@ -164,10 +218,103 @@ public class EventBus {
         return executor;
     }
 
+    /**
+     * Returns the executor bounding the subscriber queue of this bus, with the counts of dropped,
+     * delayed, caller-run and rejected calls, or {@code null} if the bus was not built with
+     * {@link Builder#withBackpressure(int, BackpressurePolicy, long, TimeUnit)}.
+     */
+    public final BackpressureExecutor backpressure() {
+        return executor instanceof BackpressureExecutor ? (BackpressureExecutor) executor : null;
+    }
+
+    /**
+     * Returns the metrics of this bus, registered as an MXBean until {@link #close()} unless the bus
+     * was built with {@link Builder#withJmx(boolean) withJmx(false)}, or {@code null} if it was built
+     * with {@link Builder#withMetrics(boolean) withMetrics(false)}.
+     */
+    public final EventBusMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the journal events are appended to before they are queued, or {@code null} if the bus
+     * was not built with {@link Builder#withJournal(Journal)}.
+     */
+    public final Journal journal() {
+        return dispatcher instanceof JournalDispatcher ? ((JournalDispatcher) dispatcher).journal() : null;
+    }
+
+    final boolean isJournaled() {
+        return dispatcher instanceof JournalDispatcher;
+    }
+
+    /**
+     * Returns the latest event of {@code eventClass} posted to this bus, or {@code null} if the bus
+     * keeps none or was not built with {@link Builder#withStickyEvents(int)}. On a bus keeping an
+     * event per key, this is the event of {@code eventClass} without a key.
+     */
+    public final <T> T stickyEvent(Class<T> eventClass) {
+        return stickyEvent(eventClass, null);
+    }
+
+    /**
+     * Returns the latest event of {@code eventClass} and {@code key} posted to a bus built with
+     * {@link Builder#withStickyEvents(int, boolean) withStickyEvents(maxEvents, true)}, or {@code
+     * null}. The key is ignored by a bus keeping a single event per class.
+     */
+    public final <T> T stickyEvent(Class<T> eventClass, @Nullable Object key) {
+        return stickyEvents != null ? eventClass.cast(stickyEvents.get(eventClass, key)) : null;
+    }
+
+    /**
+     * Forgets the sticky events that are instances of {@code eventType}, so that listeners
+     * registered from now on do not receive them.
+     *
+     * @return the number of events removed.
+     */
+    public final int removeStickyEvents(Class<?> eventType) {
+        return stickyEvents != null ? stickyEvents.remove(eventType) : 0;
+    }
+
+    final StickyEvents stickyEvents() {
+        return stickyEvents;
+    }
+
+    /**
+     * Returns the events retrying subscribers were given up on, or {@code null} if the bus was not
+     * built with {@link Builder#withDeadLetters(int)}.
+     */
+    public final DeadLetterStore deadLetters() {
+        return deadLetters;
+    }
+
+    /** Keeps {@code deadLetter} if the bus has a dead letter store. */
+    final void deadLetter(DeadLetter deadLetter) {
+        if (deadLetters != null) {
+            deadLetters.add(deadLetter);
+        }
+    }
+
+    /** Whether {@code subscriber} is still registered on this bus. */
+    final boolean isRegistered(Subscriber subscriber) {
+        return subscribers.isRegistered(subscriber);
+    }
+
+    /**
+     * Returns the key choosing the lane of {@code event} on a partitioned executor and the events a
+     * conflating subscriber replaces, or {@code null}.
+     */
+    final Object partitionKey(Object event) {
+        return partitionKeyFunction.apply(event);
+    }
+
     /** Handles the given exception thrown by a subscriber with the given context. */
     void handleSubscriberException(Throwable e, SubscriberExceptionContext context) {
         Preconditions.checkNotNull(e);
         Preconditions.checkNotNull(context);
+        if (metrics != null) {
+            metrics.onException();
+        }
         try {
             exceptionHandler.handleException(e, context);
         } catch (Throwable e2) {
@@ -185,9 +332,85 @@ public class EventBus {
      * @param object object whose subscriber methods should be registered.
      */
     public void register(Object object) {
+        if (dispatcher instanceof JournalDispatcher) {
+            ((JournalDispatcher) dispatcher).register(object, null, subscribers, executor);
+            return;
+        }
         subscribers.register(object);
     }
 
+    /**
+     * Registers all subscriber methods on {@code object} to receive only the events whose key
+     * equals {@code key}. Such subscribers are indexed by event class and key, so a post never
+     * visits the subscribers of other keys, however many there are. Keys are compared with {@code
+     * equals}: a listener registered with the {@code Integer} 42 does not receive events of the
+     * {@code Long} key 42.
+     *
+     * @param object object whose subscriber methods should be registered.
+     * @param key the key of the events to receive, as read from the {@link
+     *     com.deepexi.eventbus.annotation.EventKey} member of an event or computed by {@link
+     *     Builder#withPartitionKey(Function)}.
+     */
+    public void register(Object object, Object key) {
+        Preconditions.checkNotNull(key);
+        if (dispatcher instanceof JournalDispatcher) {
+            ((JournalDispatcher) dispatcher).register(object, key, subscribers, executor);
+            return;
+        }
+        subscribers.register(object, key);
+    }
+
+    /**
+     * Registers all subscriber methods on each of {@code objects}, as {@link #register(Object)} one
+     * by one would, but at once: the classes of the objects are scanned in parallel on the common
+     * fork-join pool, and the subscribers of each event type are merged and republished once rather
+     * than once per object. Meant for registering many listeners at startup.
+     *
+     * @param objects objects whose subscriber methods should be registered.
+     */
+    public void registerAll(Collection<?> objects) {
+        if (dispatcher instanceof JournalDispatcher) {
+            // the journal resumes each listener as it is registered
+            for (Object object : objects) {
+                register(object);
+            }
+            return;
+        }
+        subscribers.registerAll(objects);
+    }
+
+    /**
+     * Registers all subscriber methods on {@code object} to receive events, without keeping {@code
+     * object} from being garbage collected, so that short-lived listeners, such as one per session,
+     * need not be unregistered. Once {@code object} is collected, its subscribers skip the events
+     * they receive, and the next registration, unregistration or post on the bus unregisters them,
+     * as {@link java.util.WeakHashMap} expunges its stale entries; the bus starts no thread for
+     * this. Listeners registered weakly are identified by identity rather than by {@code equals}.
+     *
+     * @param object object whose subscriber methods should be registered.
+     * @throws IllegalStateException if the bus is journaled, since it resumes subscribers by name.
+     */
+    public void registerWeakly(Object object) {
+        checkNotJournaled();
+        subscribers.register(object, null, true);
+    }
+
+    /**
+     * Same as {@link #registerWeakly(Object)}, for the events whose key equals {@code key} only, as
+     * with {@link #register(Object, Object)}.
+     */
+    public void registerWeakly(Object object, Object key) {
+        Preconditions.checkNotNull(key);
+        checkNotJournaled();
+        subscribers.register(object, key, true);
+    }
+
+    private void checkNotJournaled() {
+        if (dispatcher instanceof JournalDispatcher) {
+            throw new IllegalStateException("Listeners cannot be registered weakly on a journaled bus");
+        }
+    }
+
     /**
      * Unregisters all subscriber methods on a registered {@code object}.
      *
@@ -198,6 +421,17 @@ public class EventBus {
         subscribers.unregister(object);
     }
 
+    /**
+     * Unregisters all subscriber methods on each of {@code objects}, as {@link #unregister(Object)}
+     * one by one would, but republishing the subscribers of each event type once. Objects that are
+     * not registered are skipped.
+     *
+     * @param objects objects whose subscriber methods should be unregistered.
+     */
+    public void unregisterAll(Collection<?> objects) {
+        subscribers.unregisterAll(objects);
+    }
+
     /**
      * Posts an event to all registered subscribers. This method will return successfully after the
      * event has been posted to all subscribers, and regardless of any exceptions thrown by
@@ -209,15 +443,246 @@ public class EventBus {
      * @param event event to post.
      */
     public void post(Object event) {
-        Iterator<Subscriber> eventSubscribers = subscribers.getSubscribers(event);
-        if (eventSubscribers == null) {
-            return;
+        Object recording = FlightEvents.beginPost();
+        if (stickyEvents != null && !(event instanceof DeadEvent)) {
+            // kept before the subscribers are read, so that a listener registered meanwhile gets it at least once
+            stickyEvents.put(this, event);
         }
-        if (eventSubscribers.hasNext()) {
+        Subscriber[] eventSubscribers = subscribers.getSubscribers(event);
+        if (metrics != null) {
+            metrics.onPost();
+        }
+        if (eventSubscribers.length > 0) {
             dispatcher.dispatch(event, eventSubscribers);
         } else if (!(event instanceof DeadEvent)) {
             // the event had no subscribers and was not itself a DeadEvent
-            post(new DeadEvent(this, event));
+            postDeadEvent(event);
+        }
+        if (recording != null) {
+            FlightEvents.commitPost(recording, identifier, event, eventSubscribers.length);
+        }
+    }
+
+    /**
+     * Posts an event to the subscribers whose {@linkplain
+     * com.deepexi.eventbus.annotation.Subscribe#topic() topic pattern} matches {@code topic} and who
+     * accept its type, such as {@code orders.*.created} or {@code orders.#}. The subscribers of the event's type without a topic do not
+     * receive it. If none does, it is posted as a {@link DeadEvent}. Patterns are matched through a
+     * trie of segments, and the subscribers of each topic posted to are cached. Topic subscribers
+     * cannot be registered on a journaled bus.
+     *
+     * @param topic the dot-separated topic of the event, without wildcards.
+     * @param event event to post.
+     * @throws IllegalArgumentException if {@code topic} is empty, has an empty segment or a wildcard.
+     */
+    public void post(String topic, Object event) {
+        Preconditions.checkNotNull(event);
+        Object recording = FlightEvents.beginPost();
+        Subscriber[] topicSubscribers = subscribers.getSubscribers(topic, event);
+        if (metrics != null) {
+            metrics.onPost();
+        }
+        if (topicSubscribers.length > 0) {
+            dispatcher.dispatch(event, topicSubscribers);
+        } else if (!(event instanceof DeadEvent)) {
+            postDeadEvent(event);
+        }
+        if (recording != null) {
+            FlightEvents.commitPost(recording, identifier, event, topicSubscribers.length);
+        }
+    }
+
+    /**
+     * Posts {@code event} as a request and returns the first value of {@code replyType} returned by
+     * one of its subscribers, without blocking the posting thread on an asynchronous bus. The future completes with {@code null} if no
+     * subscriber returns such a value.
+     *
+     * <p>On an asynchronous bus the subscribers complete the future as they return, on the threads
+     * that call them, where dependent stages also run unless made async. Subscribers whose return
+     * type cannot be {@code replyType}, {@code void} included, receive the event as if it were
+     * posted; the others are called with it on their own, without conflation. A request bypasses
+     * the queue of the dispatcher, except for the ring buffer whose consumer thread calls the
+     * subscribers, and is never journaled nor retried. The same holds for {@link
+     * #requestAll(Object, Class, long, TimeUnit)}.
+     *
+     * @param event event to post.
+     * @param replyType the type of the values replied, boxed if primitive.
+     */
+    public <T> CompletableFuture<T> request(Object event, Class<T> replyType) {
+        return request(event, replyType, 0L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Same as {@link #request(Object, Class)}, except that the future completes with a {@link
+     * java.util.concurrent.TimeoutException} if no subscriber has replied a value nor are all done
+     * after {@code timeout}, 0 to wait for as long as it takes.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> request(Object event, Class<T> replyType, long timeout, TimeUnit unit) {
+        Subscriber[] eventSubscribers = subscribers.getSubscribers(event);
+        Request request = Request.first(replyType, timeout, unit);
+        dispatchRequest(event, eventSubscribers, request);
+        return (CompletableFuture<T>) (CompletableFuture<?>) request.firstReply();
+    }
+
+    /**
+     * Posts {@code event} as a request and returns the values of {@code replyType} returned by its
+     * subscribers, in the order they returned them, once all of them are done or {@code timeout}
+     * has elapsed, whichever comes first.
+     *
+     * @param event event to post.
+     * @param replyType the type of the values replied, boxed if primitive.
+     * @param timeout the longest to wait for the subscribers, 0 to wait for all of them.
+     * @param unit the unit of {@code timeout}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<List<T>> requestAll(Object event, Class<T> replyType, long timeout, TimeUnit unit) {
+        Subscriber[] eventSubscribers = subscribers.getSubscribers(event);
+        Request request = Request.all(replyType, timeout, unit);
+        dispatchRequest(event, eventSubscribers, request);
+        return (CompletableFuture<List<T>>) (CompletableFuture<?>) request.allReplies();
+    }
+
+    private void dispatchRequest(Object event, Subscriber[] eventSubscribers, Request request) {
+        int responders = 0;
+        for (Subscriber subscriber : eventSubscribers) {
+            if (request.expects(subscriber)) {
+                responders++;
+            }
+        }
+        request.start(responders);
+        if (metrics != null) {
+            metrics.onPost();
+        }
+        if (eventSubscribers.length > 0) {
+            try {
+                dispatcher.dispatchRequest(event, eventSubscribers, request);
+            } catch (RejectedExecutionException e) {
+                // nobody will reply, stop the timeout of the request
+                request.fail(e);
+                throw e;
+            }
+        } else if (!(event instanceof DeadEvent)) {
+            postDeadEvent(event);
+        }
+    }
+
+    private void postDeadEvent(Object event) {
+        if (metrics != null) {
+            metrics.onDeadEvent();
+        }
+        post(new DeadEvent(this, event));
+    }
+
+    /**
+     * Posts a batch of events. Each subscriber receives all of its events from the batch, in their
+     * order in {@code events}, in a single hand-off to the executor instead of one task per event.
+     * Subscribers are handed their events from the highest priority to the lowest, so on a
+     * single-thread executor a subscriber of higher priority receives the whole batch before one of
+     * lower priority receives any of it.
+     *
+     * <p>When called by a subscriber of a synchronous bus while it is handling an event, the events
+     * are queued one by one behind that event, as reentrant {@link #post(Object)} calls would be.
+     * With a ring buffer dispatcher the events are published one by one as well, the consumer thread
+     * drains them in batches by itself.
+     *
+     * <p>Events without subscribers are posted as {@link DeadEvent}s once the batch is dispatched.
+     *
+     * @param events events to post, none of which may be null.
+     */
+    public void postAll(Collection<?> events) {
+        Object[] batch = events.toArray();
+        Subscriber[][] batchSubscribers = new Subscriber[batch.length][];
+        boolean dead = false;
+        for (int i = 0; i < batch.length; i++) {
+            Object event = Preconditions.checkNotNull(batch[i]);
+            if (stickyEvents != null && !(event instanceof DeadEvent)) {
+                stickyEvents.put(this, event);
+            }
+            // looked up per event, the subscribers of a class may depend on the key of the event
+            Subscriber[] eventSubscribers = subscribers.getSubscribers(event);
+            batchSubscribers[i] = eventSubscribers;
+            dead |= eventSubscribers.length == 0;
+        }
+        if (metrics != null) {
+            metrics.onPosts(batch.length);
+        }
+        dispatcher.dispatchAll(batch, batchSubscribers);
+        if (dead) {
+            for (int i = 0; i < batch.length; i++) {
+                if (batchSubscribers[i].length == 0 && !(batch[i] instanceof DeadEvent)) {
+                    postDeadEvent(batch[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Posts an event unless the subscriber queue has no room for it, without applying the bus's
+     * backpressure policy. With a {@linkplain #backpressure() bounded queue} the room for all
+     * subscribers of the event is reserved at once, so the event is either delivered to all of them
+     * or to none. With any other executor, a {@link RejectedExecutionException} thrown while
+     * dispatching makes this method return {@code false}, although subscribers called before the
+     * rejection do receive the event.
+     *
+     * <p>A ring buffer and parallel tiers call subscribers from a thread of their own, and cannot
+     * be combined with backpressure. On such a bus nothing is reserved and a rejection does not
+     * reach the caller, so this method behaves as {@link #post(Object)} and returns {@code true};
+     * the ring buffer still waits for a free slot.
+     *
+     * <p>An event nobody subscribes to is posted as a {@link DeadEvent}, as by {@link #post(Object)}.
+     *
+     * @param event event to post.
+     * @return {@code false} if the event was refused for lack of room in the queue.
+     */
+    public boolean tryPost(Object event) {
+        Subscriber[] eventSubscribers = subscribers.getSubscribers(event);
+        if (eventSubscribers.length == 0) {
+            post(event);
+            return true;
+        }
+        if (stickyEvents != null && !(event instanceof DeadEvent)) {
+            // even if refused, it is the latest state all the same
+            stickyEvents.put(this, event);
+        }
+        BackpressureExecutor backpressure = backpressure();
+        if (backpressure == null) {
+            try {
+                dispatcher.dispatch(event, eventSubscribers);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            } finally {
+                if (metrics != null) {
+                    metrics.onPost();
+                }
+            }
+        }
+        if (!backpressure.tryReserve(eventSubscribers.length)) {
+            return false;
+        }
+        if (metrics != null) {
+            metrics.onPost();
+        }
+        try {
+            dispatcher.dispatch(event, eventSubscribers);
+        } finally {
+            backpressure.releaseReserved();
+        }
+        return true;
+    }
+
+    /**
+     * Releases what the bus holds outside of itself: the MXBean of its metrics, if registered, and,
+     * with a journal, the journal, once the checkpoints of the subscribers are written. Subscriber
+     * calls still queued run, but are delivered again after a restart. With parallel tiers, the
+     * dispatch thread and the pool stop once the events already posted are dispatched; with a ring
+     * buffer, the consumer thread does, and this method waits for it. The executor is not shut down.
+     */
+    public void close() {
+        dispatcher.close();
+        if (metrics != null) {
+            metrics.unregister();
         }
     }
 
@@ -226,6 +691,412 @@ public class EventBus {
         return identifier;
     }
 
+    /**
+     * Builder of an {@link EventBus} for the configurations the constructors do not cover.
+     *
+     * <p>Without any option this builds the same bus as {@link #EventBus()}: subscribers run on a
+     * single dedicated thread in the order events were posted.
+     */
+    public static final class Builder {
+        private String identifier = DEFAULT_IDENTIFIER;
+        private Executor executor;
+        private SubscriberExceptionHandler exceptionHandler = LoggingHandler.INSTANCE;
+        private int ringBufferSize;
+        private BackpressurePolicy backpressurePolicy;
+        private int backpressureCapacity;
+        private long backpressureTimeoutNanos;
+        private int partitionLanes;
+        private int priorityThreads;
+        private long priorityAgingNanos;
+        private int tierParallelism;
+        private boolean virtualThreads;
+        private boolean metricsEnabled = true;
+        private boolean jmxEnabled = true;
+        private Function<Object, ?> partitionKeyFunction = EventKeys::keyOf;
+        private Journal journal;
+        private int stickyMaxEvents;
+        private boolean stickyKeyed;
+        private int deadLetterCapacity;
+
+        private Builder() {
+        }
+
+        public static Builder anEventBus() {
+            return new Builder();
+        }
+
+        /** A brief name for the bus, for logging purposes and to name its threads. */
+        public Builder withIdentifier(String identifier) {
+            this.identifier = Preconditions.checkNotNull(identifier);
+            return this;
+        }
+
+        /**
+         * The executor subscribers are called on, e.g. {@link MoreExecutors#directExecutor()} for a
+         * synchronous bus. It is the caller's responsibility to shut it down.
+         */
+        public Builder withExecutor(Executor executor) {
+            this.executor = Preconditions.checkNotNull(executor);
+            return this;
+        }
+
+        public Builder withExceptionHandler(SubscriberExceptionHandler exceptionHandler) {
+            this.exceptionHandler = Preconditions.checkNotNull(exceptionHandler);
+            return this;
+        }
+
+        /**
+         * Hands posted events to a dedicated consumer thread through a preallocated ring buffer of
+         * {@code bufferSize} slots, rounded up to a power of two, instead of a queue. Posting
+         * allocates nothing and waits while the ring is full. Unless an executor is given as well,
+         * subscribers are called directly on the consumer thread.
+         */
+        public Builder withRingBufferDispatcher(int bufferSize) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("bufferSize must be positive, but was " + bufferSize);
+            }
+            this.ringBufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Calls subscribers on a dedicated thread through a queue of at most {@code capacity} calls,
+         * handled by {@code policy} when full. {@code timeout} is how long {@link
+         * BackpressurePolicy#BLOCK} waits for room before dropping the call, other policies ignore
+         * it. A subscriber posting while the queue is full never waits for its own thread: under
+         * {@code BLOCK} the call runs right away on the subscriber's thread. Without it, the
+         * default asynchronous bus queues up to 65535 calls and throws a {@link
+         * RejectedExecutionException} to the poster beyond that; see also {@link
+         * EventBus#tryPost(Object)}.
+         *
+         * <p>Cannot be combined with an executor or a ring buffer, which bounds posting by itself.
+         */
+        public Builder withBackpressure(int capacity, BackpressurePolicy policy, long timeout, TimeUnit unit) {
+            if (timeout < 0L) {
+                throw new IllegalArgumentException("timeout must not be negative, but was " + timeout);
+            }
+            return backpressure(capacity, policy, unit.toNanos(timeout));
+        }
+
+        /**
+         * Same as {@link #withBackpressure(int, BackpressurePolicy, long, TimeUnit)} without a
+         * timeout: {@link BackpressurePolicy#BLOCK} waits for room as long as it takes, and only
+         * drops the call if the posting thread is interrupted.
+         */
+        public Builder withBackpressure(int capacity, BackpressurePolicy policy) {
+            return backpressure(capacity, policy, BackpressureExecutor.NO_TIMEOUT);
+        }
+
+        private Builder backpressure(int capacity, BackpressurePolicy policy, long timeoutNanos) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+            }
+            this.backpressurePolicy = Preconditions.checkNotNull(policy);
+            this.backpressureCapacity = capacity;
+            this.backpressureTimeoutNanos = timeoutNanos;
+            return this;
+        }
+
+        /**
+         * Calls subscribers on {@code lanes} threads, each event on the lane of its key, read from
+         * the member its class annotates with {@link com.deepexi.eventbus.annotation.EventKey} or
+         * computed by {@link #withPartitionKey(Function)}. Events of equal keys posted from one thread are
+         * handled in posting order, while events of different keys are handled in parallel. An
+         * event without a key runs on a lane chosen by the subscriber, so each subscriber still
+         * receives keyless events in order. Subscribers must bear {@link
+         * com.deepexi.eventbus.annotation.AllowConcurrentEvents} to be called from several lanes at
+         * once.
+         *
+         * <p>Cannot be combined with an executor or backpressure; with a ring buffer the consumer
+         * thread hands events to the lanes.
+         */
+        public Builder withPartitionedExecutor(int lanes) {
+            if (lanes < 1) {
+                throw new IllegalArgumentException("lanes must be positive, but was " + lanes);
+            }
+            this.partitionLanes = lanes;
+            return this;
+        }
+
+        /**
+         * Calls subscribers on {@code threads} threads that take queued calls by the priority of
+         * their subscriber rather than in posting order, where a call of high priority would wait
+         * behind every call queued by earlier posts. Each call gets a head start of {@code aging} per {@link
+         * com.deepexi.eventbus.constant.Priority} level, so a call of lower priority only yields to
+         * calls queued less than the difference of head starts after it, and is never starved.
+         * Calls of the same subscriber are taken from the queue in posting order; with a single
+         * thread they also run in that order, with several threads they may overlap or start out
+         * of order.
+         *
+         * <p>Cannot be combined with an executor, backpressure, partitions or virtual threads; with
+         * a ring buffer the consumer thread hands events to the threads.
+         */
+        public Builder withPriorityScheduling(int threads, long aging, TimeUnit unit) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be positive, but was " + threads);
+            }
+            if (aging <= 0L) {
+                throw new IllegalArgumentException("aging must be positive, but was " + aging);
+            }
+            this.priorityThreads = threads;
+            this.priorityAgingNanos = unit.toNanos(aging);
+            return this;
+        }
+
+        /**
+         * Same as {@link #withPriorityScheduling(int, long, TimeUnit)} with a head start of 100
+         * milliseconds per priority level.
+         */
+        public Builder withPriorityScheduling(int threads) {
+            return withPriorityScheduling(threads, 100L, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Calls the subscribers of an event of equal priority concurrently on a fork-join pool of
+         * {@code parallelism} threads, so an event takes the time of the slowest subscriber of each
+         * tier rather than the sum of their times. A tier starts once the tier of higher priority is
+         * done with the event. Events are dispatched one at a time
+         * in posting order by a dedicated thread that the bus stops in {@link EventBus#close()},
+         * so a subscriber is never called concurrently with itself, but two methods of the same
+         * listener with equal priorities may be. The dispatch thread queues up to 65535 events and
+         * throws a {@link RejectedExecutionException} to the poster beyond that.
+         *
+         * <p>Cannot be combined with an executor, a ring buffer, backpressure, partitions, priority
+         * scheduling or virtual threads.
+         */
+        public Builder withParallelTiers(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+            }
+            this.tierParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Computes the key of each event for {@link #withPartitionedExecutor(int)} and for
+         * {@linkplain com.deepexi.eventbus.annotation.Subscribe#conflate() conflating} subscribers, instead of
+         * reading the {@link com.deepexi.eventbus.annotation.EventKey} member of the event. The
+         * function may return {@code null} for events without a key.
+         */
+        public Builder withPartitionKey(Function<Object, ?> partitionKeyFunction) {
+            this.partitionKeyFunction = Preconditions.checkNotNull(partitionKeyFunction);
+            return this;
+        }
+
+        /**
+         * Calls subscribers on virtual threads, for subscribers that block on I/O: a new virtual
+         * thread per call, or with {@link #withPartitionedExecutor(int)} one virtual thread per
+         * lane, which makes thousands of lanes affordable. Cannot be combined with an executor or
+         * backpressure.
+         *
+         * <p>With a thread per call, a subscriber no longer receives events in the order they were
+         * posted: the calls race each other, and those of a subscriber without {@link
+         * com.deepexi.eventbus.annotation.AllowConcurrentEvents} only take turns. Partitions keep
+         * the order of the events of a key.
+         *
+         * <p>Virtual threads need Java 21 and a jar built with its {@code META-INF/versions/21}
+         * classes, see the {@code release} profile; otherwise this option is ignored with a warning
+         * and the bus keeps its platform threads.
+         */
+        public Builder withVirtualThreads() {
+            this.virtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Whether the bus keeps metrics, {@code true} by default: it counts its posts, dead events
+         * and subscriber exceptions, and the calls and sampled call durations of each subscriber,
+         * see {@link EventBus#metrics()}.
+         *
+         * <p>Either way, on Java 11 and later posts, hand-offs to a queue and subscriber calls are
+         * recorded as Java Flight Recorder events, {@code com.deepexi.eventbus.Post}, {@code
+         * Enqueue} and {@code Invocation}, while a recording is running.
+         */
+        public Builder withMetrics(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        /**
+         * Whether the bus registers its metrics as an MXBean, {@code true} by default. The platform
+         * MBean server keeps them until {@link EventBus#close()}. Ignored with {@code
+         * withMetrics(false)}.
+         */
+        public Builder withJmx(boolean jmxEnabled) {
+            this.jmxEnabled = jmxEnabled;
+            return this;
+        }
+
+        /**
+         * Appends posted events to {@code journal} before queuing them, so that queued events are
+         * not lost when the process dies. Each event is encoded by the {@linkplain com.deepexi.eventbus.journal.EventCodec
+         * codec} of the journal, which records for each subscriber name the sequence number up to
+         * which it has received its events. When a subscriber of a name is registered in a later
+         * run, the events it had not received are replayed to it ahead of new ones. Delivery is at
+         * least once: a checkpoint is written every second by default, and the events after it are
+         * received again. Subscriber names identify the progress, so a listener registered several
+         * times should name its methods apart. The bus closes the journal in {@link
+         * EventBus#close()}.
+         *
+         * <p>Batch, conflating, topic and retrying subscribers cannot be registered on such a bus,
+         * nor can listeners be registered weakly, and events nobody subscribes to are not
+         * journaled. Cannot be combined with an executor, a ring buffer, backpressure, partitions,
+         * priority scheduling, parallel tiers, sticky events or virtual threads.
+         */
+        public Builder withJournal(Journal journal) {
+            this.journal = Preconditions.checkNotNull(journal);
+            return this;
+        }
+
+        /**
+         * Keeps the latest event posted of each event class, up to {@code maxEvents} classes, see
+         * {@link #withStickyEvents(int, boolean)}.
+         */
+        public Builder withStickyEvents(int maxEvents) {
+            return withStickyEvents(maxEvents, false);
+        }
+
+        /**
+         * Keeps the latest event posted of each event class or, if {@code keyed}, of each event
+         * class and key, the key being the one of {@link #withPartitionKey(Function)}, so that a
+         * listener registered late still learns the state announced before. A listener registered receives those its subscribers accept
+         * at once, oldest first and from the subscriber of highest priority to the lowest, as
+         * posting them again would. An event posted while the listener is being registered may
+         * reach it twice, once as a sticky event and once as posted. Beyond {@code maxEvents}
+         * events, the class and key kept the longest is forgotten, and
+         * {@link EventBus#removeStickyEvents(Class)} forgets those of a type. Topic subscribers do
+         * not receive sticky events. Cannot be combined with a journal.
+         */
+        public Builder withStickyEvents(int maxEvents, boolean keyed) {
+            if (maxEvents <= 0) {
+                throw new IllegalArgumentException("maxEvents must be positive, but was " + maxEvents);
+            }
+            this.stickyMaxEvents = maxEvents;
+            this.stickyKeyed = keyed;
+            return this;
+        }
+
+        private StickyEvents stickyEvents() {
+            return stickyMaxEvents > 0 ? new StickyEvents(stickyMaxEvents, stickyKeyed) : null;
+        }
+
+        /**
+         * Keeps the last {@code capacity} events that subscribers annotated with {@link
+         * com.deepexi.eventbus.annotation.Retry} were given up on. Once the last attempt of such a subscriber fails, the exception handler
+         * is told and the event is kept in the {@link EventBus#deadLetters() dead letter store},
+         * from which it can be inspected and replayed. Retries run on the executor of the bus, or
+         * on {@link java.util.concurrent.ForkJoinPool#commonPool()} if the bus is synchronous.
+         */
+        public Builder withDeadLetters(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+            }
+            this.deadLetterCapacity = capacity;
+            return this;
+        }
+
+        private DeadLetterStore deadLetters() {
+            return deadLetterCapacity > 0 ? new DeadLetterStore(deadLetterCapacity) : null;
+        }
+
+        public EventBus build() {
+            Executor busExecutor = executor;
+            if (virtualThreads && !MoreExecutors.isVirtualThreadSupported()) {
+                logger.warning("Virtual threads require Java 21 or later and a jar built with JDK 21, running on "
+                        + System.getProperty("java.version") + ", " + identifier + " keeps platform threads.");
+            }
+            boolean useVirtualThreads = virtualThreads && MoreExecutors.isVirtualThreadSupported();
+            if (virtualThreads && (executor != null || backpressurePolicy != null)) {
+                throw new IllegalStateException("Virtual threads cannot be combined with an executor or backpressure");
+            }
+            if (backpressurePolicy != null) {
+                if (executor != null || ringBufferSize > 0 || partitionLanes > 0) {
+                    throw new IllegalStateException(
+                            "Backpressure cannot be combined with an executor, a ring buffer or partitions");
+                }
+                busExecutor = MoreExecutors.backpressureExecutor(identifier, backpressureCapacity, backpressurePolicy,
+                        backpressureTimeoutNanos, TimeUnit.NANOSECONDS);
+            }
+            if (partitionLanes > 0) {
+                if (executor != null) {
+                    throw new IllegalStateException("Partitions cannot be combined with an executor");
+                }
+                busExecutor = useVirtualThreads
+                        ? MoreExecutors.virtualPartitionedExecutor(identifier, partitionLanes)
+                        : MoreExecutors.partitionedExecutor(identifier, partitionLanes);
+            } else if (useVirtualThreads) {
+                busExecutor = MoreExecutors.virtualThreadExecutor(identifier);
+            }
+            if (priorityThreads > 0) {
+                if (executor != null || backpressurePolicy != null || partitionLanes > 0 || virtualThreads) {
+                    throw new IllegalStateException(
+                            "Priority scheduling cannot be combined with an executor, backpressure, partitions or virtual threads");
+                }
+                busExecutor = MoreExecutors.priorityExecutor(identifier, priorityThreads, priorityAgingNanos,
+                        TimeUnit.NANOSECONDS);
+            }
+            if (journal != null) {
+                if (stickyMaxEvents > 0) {
+                    throw new IllegalStateException("A journal cannot be combined with sticky events");
+                }
+                if (executor != null || ringBufferSize > 0 || backpressurePolicy != null || partitionLanes > 0
+                        || priorityThreads > 0 || tierParallelism > 0 || virtualThreads) {
+                    throw new IllegalStateException("A journal cannot be combined with an executor, a ring buffer, "
+                            + "backpressure, partitions, priority scheduling, parallel tiers or virtual threads");
+                }
+                return new EventBus(
+                        identifier,
+                        MoreExecutors.oneThreadExecutor(identifier),
+                        new JournalDispatcher(journal),
+                        exceptionHandler,
+                        partitionKeyFunction,
+                        metricsEnabled,
+                        jmxEnabled,
+                        stickyEvents(),
+                        deadLetters());
+            }
+            if (tierParallelism > 0) {
+                if (executor != null || ringBufferSize > 0 || backpressurePolicy != null || partitionLanes > 0
+                        || priorityThreads > 0 || virtualThreads) {
+                    throw new IllegalStateException("Parallel tiers cannot be combined with an executor, a ring buffer, "
+                            + "backpressure, partitions, priority scheduling or virtual threads");
+                }
+                return new EventBus(
+                        identifier,
+                        MoreExecutors.directExecutor(),
+                        Dispatcher.tiered(identifier, tierParallelism),
+                        exceptionHandler,
+                        partitionKeyFunction,
+                        metricsEnabled,
+                        jmxEnabled,
+                        stickyEvents(),
+                        deadLetters());
+            }
+            if (ringBufferSize > 0) {
+                return new EventBus(
+                        identifier,
+                        busExecutor != null ? busExecutor : MoreExecutors.directExecutor(),
+                        Dispatcher.ringBuffer(identifier, ringBufferSize),
+                        exceptionHandler,
+                        partitionKeyFunction,
+                        metricsEnabled,
+                        jmxEnabled,
+                        stickyEvents(),
+                        deadLetters());
+            }
+            return new EventBus(
+                    identifier,
+                    busExecutor != null ? busExecutor : MoreExecutors.oneThreadExecutor(identifier),
+                    Dispatcher.perThreadDispatchQueue(),
+                    exceptionHandler,
+                    partitionKeyFunction,
+                    metricsEnabled,
+                    jmxEnabled,
+                    stickyEvents(),
+                    deadLetters());
+        }
+    }
+
     /** Simple logging handler for subscriber exceptions. */
     static final class LoggingHandler implements SubscriberExceptionHandler {
         static final LoggingHandler INSTANCE = new LoggingHandler();
@@ -0,0 +1,57 @@
+package com.deepexi.eventbus;
+
+/**
+ * <p> Java Flight Recorder events of the bus: a post, the hand-off of an event to a queue, and a
+ * subscriber call. This is the implementation for Java 8 to 10, which records nothing; the
+ * multi-release jar replaces it on Java 11 and later with the one in {@code src/main/java11}. Both
+ * must keep the same members. </p>
+ *
+ * <p>Each event is recorded by a {@code begin} method, which returns {@code null} unless the event
+ * is being recorded, and a {@code commit} method that callers skip on {@code null}, so that nothing
+ * is allocated or measured while no recording is running.
+ */
+final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /** Starts a post event, or returns {@code null} if post events are not recorded. */
+    static Object beginPost() {
+        return null;
+    }
+
+    static void commitPost(Object post, String bus, Object event, int subscribers) {
+    }
+
+    /** Starts an enqueue event, or returns {@code null} if enqueue events are not recorded. */
+    static Object beginEnqueue() {
+        return null;
+    }
+
+    /**
+     * @param subscriber the name of the subscriber the event is queued for, {@code null} if it is
+     *     queued for all of them
+     */
+    static void commitEnqueue(Object enqueue, String bus, Object event, String subscriber, int priority) {
+    }
+
+    /**
+     * Returns the time an event is queued at, to be handed to {@link #commitInvocation}, or 0 if
+     * invocation events are not recorded.
+     */
+    static long enqueueTime() {
+        return 0L;
+    }
+
+    /** Starts an invocation event, or returns {@code null} if invocation events are not recorded. */
+    static Object beginInvocation() {
+        return null;
+    }
+
+    /**
+     * @param enqueueTime the {@link #enqueueTime()} of the event, 0 if it was not queued
+     */
+    static void commitInvocation(Object invocation, String bus, Object event, String subscriber, int priority,
+            long enqueueTime) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.base.MoreExecutors;
+import com.deepexi.eventbus.journal.Journal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> a {@link Dispatcher} that appends each event to a {@link Journal} before queuing it for its
+ * subscribers, and keeps track of what each subscriber name has received, so that the events still
+ * queued when the process dies are delivered after a restart. </p>
+ *
+ * <p>Events are appended and queued under one lock, and the bus has a single worker thread, so each
+ * subscriber is called with its events in the order of their sequence numbers. The {@link Progress}
+ * of a subscriber name is then the sequence of the last event queued for it and of the last one it
+ * was called with. Its checkpoint is the latter while calls are queued, and otherwise the last
+ * sequence queued for anyone, since no event up to there is left for it. Checkpoints are written
+ * every checkpoint interval of the journal, so events may be delivered twice after a crash.
+ *
+ * <p>A subscriber name found in the checkpoints of an earlier run keeps its checkpoint until a
+ * subscriber of that name is registered. Its undelivered events are then replayed by a single task on
+ * the worker thread, queued ahead of the events posted after the registration.
+ */
+final class JournalDispatcher extends Dispatcher {
+    private static final Logger LOGGER = Logger.getLogger(JournalDispatcher.class.getName());
+
+    private final Journal journal;
+
+    /** Guards appending to the journal together with queuing, and the registration of subscribers. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ConcurrentMap<String, Progress> progress = new ConcurrentHashMap<>();
+
+    /** The sequence of the last event queued for all of its subscribers. */
+    private volatile long dispatchedSequence;
+
+    private final ScheduledFuture<?> checkpoints;
+
+    JournalDispatcher(Journal journal) {
+        this.journal = checkNotNull(journal);
+        this.dispatchedSequence = journal.getLastSequence();
+        for (Map.Entry<String, Long> checkpoint : journal.getRecoveredCheckpoints().entrySet()) {
+            progress.put(checkpoint.getKey(), new Progress(checkpoint.getValue(), false));
+        }
+        long interval = journal.getCheckpointIntervalNanos();
+        this.checkpoints = MoreExecutors.scheduler().scheduleWithFixedDelay(this::checkpoint, interval, interval,
+                TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    void dispatch(Object event, Subscriber[] subscribers) {
+        if (event instanceof DeadEvent) {
+            // it refers to the bus, and the event it wraps was never meant for anyone
+            for (Subscriber subscriber : subscribers) {
+                subscriber.dispatchEvent(event);
+            }
+            return;
+        }
+        byte[] payload = journal.getCodec().encode(event);
+        long sequence;
+        lock.lock();
+        try {
+            sequence = append(payload, event, subscribers);
+        } finally {
+            lock.unlock();
+        }
+        if (journal.isSyncOnPost()) {
+            journal.sync(sequence);
+        }
+    }
+
+    /**
+     * Journals the events one by one, each subscriber receives each of its events in a task of its
+     * own. With sync on post, the batch waits for a single sync.
+     */
+    @Override
+    void dispatchAll(Object[] events, Subscriber[][] subscribers) {
+        byte[][] payloads = new byte[events.length][];
+        for (int i = 0; i < events.length; i++) {
+            if (subscribers[i].length > 0 && !(events[i] instanceof DeadEvent)) {
+                payloads[i] = journal.getCodec().encode(events[i]);
+            }
+        }
+        long sequence = 0L;
+        lock.lock();
+        try {
+            for (int i = 0; i < events.length; i++) {
+                if (payloads[i] != null) {
+                    sequence = append(payloads[i], events[i], subscribers[i]);
+                } else {
+                    for (Subscriber subscriber : subscribers[i]) {
+                        subscriber.dispatchEvent(events[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (journal.isSyncOnPost() && sequence > 0L) {
+            journal.sync(sequence);
+        }
+    }
+
+    private long append(byte[] payload, Object event, Subscriber[] subscribers) {
+        long sequence = journal.append(payload);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.dispatchJournaled(event, sequence);
+        }
+        dispatchedSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Registers {@code listener} for the events of {@code key}, or all events if {@code null}, and
+     * binds its subscribers to the progress of their names, replaying on {@code executor} what the
+     * journal holds for names recovered from an earlier run.
+     */
+    void register(Object listener, Object key, SubscriberRegistry registry, Executor executor) {
+        lock.lock();
+        try {
+            registry.register(listener, key);
+            long upTo = journal.getLastSequence();
+            List<Replay> replays = new ArrayList<>();
+            for (Subscriber subscriber : registry.subscribersOf(listener)) {
+                if (subscriber.journalProgress != null) {
+                    continue;
+                }
+                Progress subscriberProgress = progress.computeIfAbsent(subscriber.getSubscribeMethod().getName(),
+                        name -> new Progress(upTo, true));
+                subscriber.journalProgress = subscriberProgress;
+                if (!subscriberProgress.live && subscriberProgress.recovered < upTo) {
+                    replays.add(new Replay(subscriber, subscriberProgress));
+                }
+            }
+            if (!replays.isEmpty()) {
+                replays.sort((r1, r2) -> Integer.compare(r2.subscriber.getSubscribeMethod().getPriority(),
+                        r1.subscriber.getSubscribeMethod().getPriority()));
+                for (Replay replay : replays) {
+                    replay.progress.delivered = replay.progress.recovered;
+                    replay.progress.dispatched = upTo;
+                }
+                executor.execute(() -> replay(replays, upTo));
+            }
+            for (Subscriber subscriber : registry.subscribersOf(listener)) {
+                subscriber.journalProgress.live = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls each subscriber with its journaled events up to {@code upTo}, on the worker thread. */
+    private void replay(List<Replay> replays, long upTo) {
+        long after = upTo;
+        for (Replay replay : replays) {
+            after = Math.min(after, replay.progress.recovered);
+        }
+        LOGGER.info("Replaying the events " + (after + 1) + " to " + upTo + " of journal " + journal.getDirectory()
+                + " to " + replays.size() + " subscribers");
+        try {
+            journal.forEach(after, upTo, (event, sequence) -> {
+                for (Replay replay : replays) {
+                    if (sequence > replay.progress.recovered && replay.subscriber.accepts(event)) {
+                        replay.subscriber.deliver(event);
+                        replay.progress.delivered = sequence;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not replay journal " + journal.getDirectory(), e);
+            return;
+        }
+        for (Replay replay : replays) {
+            replay.progress.delivered = upTo;
+        }
+    }
+
+    /** Writes the checkpoint of every subscriber name. */
+    private void checkpoint() {
+        // read before the progress of each name, see Progress#checkpoint
+        long dispatched = dispatchedSequence;
+        Map<String, Long> positions = new HashMap<>();
+        for (Map.Entry<String, Progress> entry : progress.entrySet()) {
+            positions.put(entry.getKey(), entry.getValue().checkpoint(dispatched));
+        }
+        try {
+            journal.checkpoint(positions);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not write the checkpoints of journal " + journal.getDirectory(), e);
+        }
+    }
+
+    /** Writes the checkpoints one last time and closes the journal. */
+    @Override
+    void close() {
+        checkpoints.cancel(false);
+        lock.lock();
+        try {
+            checkpoint();
+            journal.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Journal journal() {
+        return journal;
+    }
+
+    /** What the subscribers of one name have received of the journal. */
+    static final class Progress {
+        /** The checkpoint read from the journal, which holds until the name is registered. */
+        private final long recovered;
+
+        /** Whether a subscriber of the name is registered, guarded by the dispatcher's lock when set. */
+        private volatile boolean live;
+
+        /** The sequence of the last event queued for the name, written under the dispatcher's lock. */
+        private volatile long dispatched;
+
+        /** The sequence of the last event the name was called with, written by the worker thread. */
+        private volatile long delivered;
+
+        private Progress(long sequence, boolean live) {
+            this.recovered = sequence;
+            this.live = live;
+            this.dispatched = sequence;
+            this.delivered = sequence;
+        }
+
+        void dispatched(long sequence) {
+            dispatched = sequence;
+        }
+
+        void delivered(long sequence) {
+            delivered = sequence;
+        }
+
+        /**
+         * Returns the sequence up to which the name has received all of its events. {@code
+         * dispatchedSequence} must be read before this is called: every event up to it that is meant
+         * for the name was queued before {@link #dispatched} is read, so if nothing is queued after
+         * {@link #delivered} they were all delivered.
+         */
+        long checkpoint(long dispatchedSequence) {
+            if (!live) {
+                return recovered;
+            }
+            long queued = dispatched;
+            long called = delivered;
+            return called >= queued ? Math.max(called, dispatchedSequence) : called;
+        }
+    }
+
+    /** A subscriber whose name has events to replay. */
+    private static final class Replay {
+        private final Subscriber subscriber;
+        private final Progress progress;
+
+        private Replay(Subscriber subscriber, Progress progress) {
+            this.subscriber = subscriber;
+            this.progress = progress;
+        }
+    }
+}
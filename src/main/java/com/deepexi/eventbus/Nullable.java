@@ -0,0 +1,17 @@
+package com.deepexi.eventbus;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> marks a parameter that may be null, in place of the JDK-internal annotation, which is not
+ * visible when compiling with {@code --release} </p>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.PARAMETER, ElementType.FIELD, ElementType.METHOD})
+@interface Nullable {
+}
@@ -0,0 +1,200 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.base.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p> the replies to an event posted with {@link EventBus#request(Object, Class)} or {@link
+ * EventBus#requestAll(Object, Class, long, TimeUnit)}, completed by the subscribers as they are
+ * called, on whatever thread calls them. </p>
+ *
+ * <p>Each subscriber whose method may return a value of the reply type {@linkplain
+ * #expects(Subscriber) is expected} to reply exactly once: with what it returned, or with nothing if
+ * it returned {@code null} or a value of another type, threw, or its call was discarded by the
+ * executor of the bus. A request for the first reply completes with the
+ * first value replied, or with {@code null} once every subscriber replied nothing. A request for all
+ * replies completes with the values replied, in the order they came, once every subscriber replied.
+ * A timeout completes the first with a {@link TimeoutException} and the second with the values
+ * replied so far.
+ */
+final class Request {
+    private final Class<?> replyType;
+
+    /** Completed with the first value replied, {@code null} for a request of all replies. */
+    private final CompletableFuture<Object> firstReply;
+
+    /** Completed with all the values replied, {@code null} for a request of the first reply. */
+    private final CompletableFuture<List<Object>> allReplies;
+
+    /** Guarded by this. */
+    private final List<Object> replies = new ArrayList<>();
+
+    /** The subscribers yet to reply, 0 once the request is complete. Guarded by this. */
+    private int pending;
+
+    private final long timeout;
+    private final TimeUnit unit;
+
+    /** Guarded by this. */
+    private ScheduledFuture<?> timeoutTask;
+
+    private Request(Class<?> replyType, boolean firstOnly, long timeout, TimeUnit unit) {
+        this.replyType = wrap(replyType);
+        this.firstReply = firstOnly ? new CompletableFuture<>() : null;
+        this.allReplies = firstOnly ? null : new CompletableFuture<>();
+        this.timeout = timeout;
+        this.unit = unit;
+    }
+
+    /** Returns a request for the first value replied, timing out after {@code timeout} if positive. */
+    static Request first(Class<?> replyType, long timeout, TimeUnit unit) {
+        return new Request(replyType, true, timeout, unit);
+    }
+
+    /** Returns a request for all the values replied, timing out after {@code timeout} if positive. */
+    static Request all(Class<?> replyType, long timeout, TimeUnit unit) {
+        return new Request(replyType, false, timeout, unit);
+    }
+
+    /**
+     * Starts waiting for {@code responders} subscribers to reply, counted with {@link
+     * #expects(Subscriber)} before the event is dispatched to any of them.
+     */
+    void start(int responders) {
+        if (responders == 0) {
+            complete();
+            return;
+        }
+        synchronized (this) {
+            pending = responders;
+            if (timeout > 0L) {
+                timeoutTask = MoreExecutors.scheduler().schedule(this::timedOut, timeout, unit);
+            }
+        }
+    }
+
+    CompletableFuture<Object> firstReply() {
+        return firstReply;
+    }
+
+    CompletableFuture<List<Object>> allReplies() {
+        return allReplies;
+    }
+
+    /**
+     * Whether {@code subscriber} replies to this request: its method returns a value, declared of
+     * the reply type, a subtype of it or a supertype such as {@code Object}.
+     */
+    boolean expects(Subscriber subscriber) {
+        if (!subscriber.replies()) {
+            return false;
+        }
+        Class<?> returnType = wrap(subscriber.getSubscribeMethod().getMethod().getReturnType());
+        return replyType.isAssignableFrom(returnType) || returnType.isAssignableFrom(replyType);
+    }
+
+    /** Records the reply of one expected subscriber, nothing if {@code result} is {@code null} or of another type. */
+    void reply(Object result) {
+        if (result != null && !replyType.isInstance(result)) {
+            result = null;
+        }
+        synchronized (this) {
+            if (pending == 0) {
+                return;
+            }
+            if (result != null && firstReply != null) {
+                pending = 0;
+            } else {
+                pending--;
+                if (result != null) {
+                    replies.add(result);
+                }
+            }
+            if (pending > 0) {
+                return;
+            }
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+            }
+        }
+        // completed outside of the lock, dependent stages run here
+        if (firstReply != null) {
+            firstReply.complete(result);
+        } else {
+            complete();
+        }
+    }
+
+    /** Completes the request with {@code cause}, its event never reached the subscribers. */
+    void fail(Throwable cause) {
+        synchronized (this) {
+            pending = 0;
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+            }
+        }
+        if (firstReply != null) {
+            firstReply.completeExceptionally(cause);
+        } else {
+            allReplies.completeExceptionally(cause);
+        }
+    }
+
+    private void timedOut() {
+        synchronized (this) {
+            if (pending == 0) {
+                return;
+            }
+            pending = 0;
+        }
+        if (firstReply != null) {
+            firstReply.completeExceptionally(new TimeoutException("No subscriber replied in time"));
+        } else {
+            complete();
+        }
+    }
+
+    /** Completes the request with the replies received, once no more are pending. */
+    private void complete() {
+        if (firstReply != null) {
+            firstReply.complete(null);
+            return;
+        }
+        List<Object> received;
+        synchronized (this) {
+            received = new ArrayList<>(replies);
+        }
+        allReplies.complete(Collections.unmodifiableList(received));
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+}
@@ -0,0 +1,64 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.annotation.Retry;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> the retries of a subscriber method, as declared by its {@link Retry} annotation. </p>
+ *
+ * <p>The annotation is read once per method, when {@link SubscribeMethods} parses its class, and the
+ * policy is kept in the {@link SubscribeMethod} shared by the subscribers of every listener instance.
+ */
+final class RetryPolicy {
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final double multiplier;
+    private final long maxBackoffNanos;
+
+    private RetryPolicy(int maxAttempts, long backoffNanos, double multiplier, long maxBackoffNanos) {
+        this.maxAttempts = maxAttempts;
+        this.backoffNanos = backoffNanos;
+        this.multiplier = multiplier;
+        this.maxBackoffNanos = maxBackoffNanos;
+    }
+
+    /**
+     * Returns the policy declared on {@code method}, or {@code null} if it is not annotated.
+     *
+     * @throws IllegalArgumentException if the annotation has invalid values.
+     */
+    static RetryPolicy of(Method method) {
+        Retry retry = method.getAnnotation(Retry.class);
+        if (retry == null) {
+            return null;
+        }
+        String target = "Target method[" + method.getDeclaringClass().getName() + "#" + method.getName() + "]";
+        if (retry.maxAttempts() < 1) {
+            throw new IllegalArgumentException(target + " must be attempted at least once, but found "
+                    + retry.maxAttempts() + " now.");
+        }
+        if (retry.backoffMillis() < 0L || retry.maxBackoffMillis() < retry.backoffMillis()) {
+            throw new IllegalArgumentException(target + " must back off between 0 and maxBackoffMillis, but found "
+                    + retry.backoffMillis() + " and " + retry.maxBackoffMillis() + " now.");
+        }
+        if (!(retry.multiplier() >= 1.0)) {
+            throw new IllegalArgumentException(target + " must not shorten its backoff, but found a multiplier of "
+                    + retry.multiplier() + " now.");
+        }
+        return new RetryPolicy(retry.maxAttempts(), TimeUnit.MILLISECONDS.toNanos(retry.backoffMillis()),
+                retry.multiplier(), TimeUnit.MILLISECONDS.toNanos(retry.maxBackoffMillis()));
+    }
+
+    /** Whether a call that failed on its {@code attempt}th attempt, counted from 1, is retried. */
+    boolean retries(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /** Returns how long to wait after the {@code attempt}th attempt before the next one. */
+    long backoffNanos(int attempt) {
+        double backoff = backoffNanos * Math.pow(multiplier, attempt - 1);
+        return backoff >= maxBackoffNanos ? maxBackoffNanos : (long) backoff;
+    }
+}
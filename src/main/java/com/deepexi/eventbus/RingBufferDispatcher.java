@@ -0,0 +1,335 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.base.Preconditions;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p> a {@link Dispatcher} that hands events to a single consumer thread through a preallocated
+ * ring of mutable slots, in the style of the LMAX Disruptor. </p>
+ *
+ * <p>Posting claims a sequence number, waits for the slot to be free if the ring is full, writes
+ * the event and its subscriber snapshot into the slot and publishes it. Nothing is allocated per
+ * post, whatever the number of subscribers. The consumer thread drains every published slot it
+ * finds in one batch, dispatches each event to its subscribers in priority order and releases the
+ * whole batch at once.
+ *
+ * <p>Events posted by any number of threads are delivered in the order of their sequence number.
+ * A subscriber that posts from the consumer thread while the ring is full has its event dispatched
+ * immediately instead, since waiting for the consumer would mean waiting for itself.
+ *
+ * <p>The consumer is a daemon thread: events still in the ring when the JVM exits are lost. {@link
+ * #close()} seals the cursor, so that every sequence is either claimed before it, and dispatched
+ * before the consumer stops, or claimed after it, and rejected.
+ */
+final class RingBufferDispatcher extends Dispatcher {
+    private static final Logger LOGGER = Logger.getLogger(RingBufferDispatcher.class.getName());
+
+    /** Spins of the consumer before it parks, and of a producer before it yields. */
+    private static final int SPIN_TRIES = 100;
+
+    /** Added to the cursor by {@link #close()}, far beyond any sequence a ring ever reaches. */
+    private static final long CLOSED = 1L << 62;
+
+    private final String identifier;
+    private final Slot[] slots;
+    private final int mask;
+    private final int indexShift;
+
+    /** The lap in which each slot was last published, see {@link #isPublished(long)}. */
+    private final AtomicIntegerArray published;
+
+    /** The highest sequence claimed by a producer. */
+    private final Sequence cursor = new Sequence(-1L);
+
+    /** The highest sequence the consumer is done with. */
+    private final Sequence consumed = new Sequence(-1L);
+
+    private final Thread consumer;
+
+    /** Whether the consumer is, or is about to be, parked waiting for events. */
+    private volatile boolean consumerWaiting;
+
+    /** Set by {@link #close()}, the consumer exits once it has dispatched {@link #lastSequence}. */
+    private volatile boolean closed;
+
+    /** The last sequence claimed before {@link #close()} sealed the cursor. */
+    private volatile long lastSequence = Long.MAX_VALUE;
+
+    RingBufferDispatcher(String identifier, int bufferSize) {
+        this.identifier = Preconditions.checkNotNull(identifier);
+        if (bufferSize < 1 || bufferSize > 1 << 30) {
+            throw new IllegalArgumentException("bufferSize must be between 1 and 2^30, but was " + bufferSize);
+        }
+        int capacity = Integer.highestOneBit(bufferSize - 1) << 1;
+        capacity = capacity == 0 ? 1 : capacity;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(capacity);
+        this.published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.consumer = new Thread(this::consume, identifier + "-ring-dispatcher");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /** Returns the number of slots, the requested size rounded up to a power of two. */
+    int bufferSize() {
+        return slots.length;
+    }
+
+    /** Returns the number of events claimed by producers and not yet dispatched by the consumer. */
+    @Override
+    int backlog() {
+        long claimed = Math.min(cursor.get(), lastSequence);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, claimed - consumed.get()));
+    }
+
+    @Override
+    void dispatch(Object event, Subscriber[] subscribers) {
+        publish(event, subscribers, null);
+    }
+
+    /** Publishes the request like an event, so that its subscribers are called on the consumer thread. */
+    @Override
+    void dispatchRequest(Object event, Subscriber[] subscribers, Request request) {
+        publish(event, subscribers, Preconditions.checkNotNull(request));
+    }
+
+    private void publish(Object event, Subscriber[] subscribers, Request request) {
+        Preconditions.checkNotNull(event);
+        Preconditions.checkNotNull(subscribers);
+        long sequence;
+        if (Thread.currentThread() == consumer) {
+            // waiting for room would mean waiting for itself
+            sequence = tryClaim();
+            if (sequence < 0L) {
+                dispatchNow(event, subscribers, request);
+                return;
+            }
+        } else {
+            sequence = cursor.getAndIncrement() + 1;
+        }
+        if (sequence >= CLOSED) {
+            // claimed after close() sealed the cursor, the consumer will not get this far
+            throw new RejectedExecutionException(identifier + " is closed");
+        }
+        awaitCapacity(sequence);
+        Object enqueue = FlightEvents.beginEnqueue();
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.event = event;
+        slot.subscribers = subscribers;
+        slot.request = request;
+        // a volatile write, ordered before the read of consumerWaiting below
+        published.set((int) sequence & mask, (int) (sequence >>> indexShift));
+
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+        if (enqueue != null) {
+            FlightEvents.commitEnqueue(enqueue, identifier, event, null, 0);
+        }
+    }
+
+    /**
+     * Publishes the events one by one: the consumer thread already drains them in batches, and
+     * grouping them here would deliver them on the posting thread.
+     */
+    @Override
+    void dispatchAll(Object[] events, Subscriber[][] subscribers) {
+        for (int i = 0; i < events.length; i++) {
+            dispatch(events[i], subscribers[i]);
+        }
+    }
+
+    /**
+     * Claims the next sequence if its slot is free, checking for room and claiming in one
+     * compare-and-set, or returns -1 if the ring is full. Once the cursor is sealed, returns a
+     * sequence beyond {@link #CLOSED} without claiming it.
+     */
+    private long tryClaim() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            if (next >= CLOSED) {
+                return next;
+            }
+            if (next - slots.length > consumed.get()) {
+                return -1L;
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Stops the consumer once it has dispatched the events already published, and waits for it
+     * unless called by a subscriber on the consumer thread itself.
+     */
+    @Override
+    void close() {
+        synchronized (this) {
+            if (!closed) {
+                lastSequence = cursor.getAndAdd(CLOSED);
+                closed = true;
+            }
+        }
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() == consumer) {
+            return;
+        }
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Waits until the slot of {@code sequence} has been released by the consumer. */
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - slots.length;
+        int tries = 0;
+        while (wrapPoint > consumed.get()) {
+            if (tries++ < SPIN_TRIES) {
+                continue;
+            }
+            if (tries < SPIN_TRIES * 2) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(1000L);
+            }
+        }
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    private void consume() {
+        long next = consumed.get() + 1;
+        while (true) {
+            if (!isPublished(next)) {
+                if (closed && next > lastSequence) {
+                    return;
+                }
+                awaitPublished(next);
+                continue;
+            }
+            // batch everything published contiguously after next
+            long last = next;
+            long claimed = Math.min(cursor.get(), lastSequence);
+            while (last < claimed && isPublished(last + 1)) {
+                last++;
+            }
+            for (long sequence = next; sequence <= last; sequence++) {
+                Slot slot = slots[(int) sequence & mask];
+                Object event = slot.event;
+                Subscriber[] subscribers = slot.subscribers;
+                Request request = slot.request;
+                slot.event = null;
+                slot.subscribers = null;
+                slot.request = null;
+                dispatchNow(event, subscribers, request);
+            }
+            consumed.lazySet(last);
+            next = last + 1;
+        }
+    }
+
+    private void awaitPublished(long sequence) {
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            if (isPublished(sequence)) {
+                return;
+            }
+        }
+        consumerWaiting = true;
+        try {
+            if (!isPublished(sequence) && !closed) {
+                LockSupport.park(this);
+            }
+        } finally {
+            consumerWaiting = false;
+        }
+    }
+
+    private static void dispatchNow(Object event, Subscriber[] subscribers, Request request) {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                if (request != null) {
+                    subscriber.dispatchRequest(event, request);
+                } else {
+                    subscriber.dispatchEvent(event);
+                }
+            } catch (Throwable e) {
+                // the consumer must survive Errors thrown by a subscriber or a rejecting executor
+                LOGGER.log(Level.SEVERE, "Failed to dispatch " + event + " to " + subscriber.getSubscribeMethod().getName(), e);
+            }
+        }
+    }
+
+    /** A preallocated, reusable slot of the ring. */
+    private static final class Slot {
+        private Object event;
+        private Subscriber[] subscribers;
+        /** The request the event was posted with, {@code null} for a post. */
+        private Request request;
+    }
+
+    /** Cache line padding in front of {@link Value#value}. */
+    @SuppressWarnings("unused")
+    private static class LhsPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class Value extends LhsPadding {
+        protected volatile long value;
+    }
+
+    /**
+     * A sequence counter padded on both sides, so that the producers' cursor and the consumer's
+     * progress never share a cache line with each other or with other hot fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends Value {
+        private static final AtomicLongFieldUpdater<Value> UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Value.class, "value");
+
+        protected long p9, p10, p11, p12, p13, p14, p15;
+
+        private Sequence(long initialValue) {
+            UPDATER.set(this, initialValue);
+        }
+
+        private long get() {
+            return value;
+        }
+
+        private boolean compareAndSet(long expect, long update) {
+            return UPDATER.compareAndSet(this, expect, update);
+        }
+
+        private long getAndIncrement() {
+            return UPDATER.getAndIncrement(this);
+        }
+
+        private long getAndAdd(long delta) {
+            return UPDATER.getAndAdd(this, delta);
+        }
+
+        private void lazySet(long newValue) {
+            UPDATER.lazySet(this, newValue);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.deepexi.eventbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p> the latest events posted to a bus, one per event class or, when keyed, one per event class
+ * and {@linkplain EventBus#partitionKey(Object) key}, handed to the subscribers of a listener when
+ * it is registered. </p>
+ *
+ * <p>Posting an event of a class and key already kept replaces the event in place, without locking
+ * nor allocating, so posting threads do not wait for each other. At most {@code maxEvents} events
+ * are kept: posting an event of a new class or key beyond that forgets the class and key kept the
+ * longest.
+ */
+final class StickyEvents {
+    /** The key of the events of a class on a bus that is not keyed, or of events without a key. */
+    private static final Object NO_KEY = new Object();
+
+    private final int maxEvents;
+    private final boolean keyed;
+
+    /** The events kept, by class and then by key. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Sticky>> events = new ConcurrentHashMap<>();
+
+    /** The events kept, in the order their class and key were first kept, to forget the oldest. */
+    private final Queue<Sticky> order = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    StickyEvents(int maxEvents, boolean keyed) {
+        this.maxEvents = maxEvents;
+        this.keyed = keyed;
+    }
+
+    /** Keeps {@code event}, replacing the event of the same class and key. */
+    void put(EventBus bus, Object event) {
+        Class<?> eventClass = event.getClass();
+        Object key = key(keyed ? bus.partitionKey(event) : null);
+        ConcurrentMap<Object, Sticky> ofClass = events.get(eventClass);
+        if (ofClass == null) {
+            ConcurrentMap<Object, Sticky> created = new ConcurrentHashMap<>();
+            ofClass = events.putIfAbsent(eventClass, created);
+            ofClass = ofClass != null ? ofClass : created;
+        }
+        while (true) {
+            Sticky sticky = ofClass.get(key);
+            if (sticky != null) {
+                sticky.set(event);
+                if (!sticky.forgotten) {
+                    return;
+                }
+                // forgotten meanwhile, keep the event as one of a new class and key
+                continue;
+            }
+            sticky = new Sticky(eventClass, key, event);
+            if (ofClass.putIfAbsent(key, sticky) == null) {
+                order.add(sticky);
+                if (size.incrementAndGet() > maxEvents) {
+                    forgetOldest();
+                }
+                return;
+            }
+        }
+    }
+
+    private void forgetOldest() {
+        while (size.get() > maxEvents) {
+            Sticky oldest = order.poll();
+            if (oldest == null) {
+                return;
+            }
+            forget(oldest);
+        }
+    }
+
+    /** Removes {@code sticky} unless it was already, and returns whether it was kept. */
+    private boolean forget(Sticky sticky) {
+        ConcurrentMap<Object, Sticky> ofClass = events.get(sticky.eventClass);
+        if (ofClass == null || !ofClass.remove(sticky.key, sticky)) {
+            return false;
+        }
+        sticky.forgotten = true;
+        size.decrementAndGet();
+        return true;
+    }
+
+    /** Returns the event kept for {@code eventClass} and {@code key}, or {@code null}. */
+    Object get(Class<?> eventClass, Object key) {
+        ConcurrentMap<Object, Sticky> ofClass = events.get(eventClass);
+        Sticky sticky = ofClass != null ? ofClass.get(key(keyed ? key : null)) : null;
+        return sticky != null ? sticky.event : null;
+    }
+
+    /** Removes the events that are instances of {@code eventType}, and returns how many there were. */
+    int remove(Class<?> eventType) {
+        int removed = 0;
+        for (Map.Entry<Class<?>, ConcurrentMap<Object, Sticky>> ofClass : events.entrySet()) {
+            if (!eventType.isAssignableFrom(ofClass.getKey())) {
+                continue;
+            }
+            for (Sticky sticky : ofClass.getValue().values()) {
+                if (forget(sticky)) {
+                    order.remove(sticky);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /** Returns the events kept, from the least recently posted to the most recent one. */
+    List<Object> snapshot() {
+        List<Sticky> kept = new ArrayList<>();
+        for (ConcurrentMap<Object, Sticky> ofClass : events.values()) {
+            kept.addAll(ofClass.values());
+        }
+        // nanoTime values are compared by their difference, they may wrap around
+        kept.sort((a, b) -> Long.signum(a.postedNanos - b.postedNanos));
+        List<Object> snapshot = new ArrayList<>(kept.size());
+        for (Sticky sticky : kept) {
+            snapshot.add(sticky.event);
+        }
+        return snapshot;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private static Object key(Object key) {
+        return key != null ? key : NO_KEY;
+    }
+
+    @Override
+    public String toString() {
+        return "StickyEvents{maxEvents=" + maxEvents + ", keyed=" + keyed + ", size=" + size() + '}';
+    }
+
+    /** The event kept for a class and key, replaced in place by the next one. */
+    private static final class Sticky {
+        private final Class<?> eventClass;
+        private final Object key;
+        private volatile Object event;
+        private volatile long postedNanos;
+        /** Set once removed, an event set afterwards has to be kept anew. */
+        private volatile boolean forgotten;
+
+        private Sticky(Class<?> eventClass, Object key, Object event) {
+            this.eventClass = eventClass;
+            this.key = key;
+            set(event);
+        }
+
+        private void set(Object event) {
+            this.event = event;
+            this.postedNanos = System.nanoTime();
+        }
+    }
+}
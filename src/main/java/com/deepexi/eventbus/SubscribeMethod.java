@@ -18,6 +18,18 @@ public class SubscribeMethod implements Serializable {
     private Class eventType;
     /** the method's business name defined by user **/
     private String name;
+    /** the maximum number of events per call, 0 if the method receives events one by one **/
+    private int batchSize;
+    /** the maximum time in milliseconds an event waits for its batch to fill up **/
+    private long batchWaitMillis;
+    /** whether a pending event is replaced by a newer one with the same key **/
+    private boolean conflate;
+    /** the topic pattern the method subscribes to, null if it subscribes to the events posted without a topic **/
+    private String topic;
+    /** the prebuilt call site of the method, see {@link SubscriberInvokers} **/
+    private transient SubscriberInvoker invoker;
+    /** the retries declared by {@link com.deepexi.eventbus.annotation.Retry}, null if the method is not annotated **/
+    private transient RetryPolicy retryPolicy;
 
     public Method getMethod() {
         return method;
@@ -51,6 +63,60 @@ public class SubscribeMethod implements Serializable {
         this.eventType = eventType;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchWaitMillis() {
+        return batchWaitMillis;
+    }
+
+    public void setBatchWaitMillis(long batchWaitMillis) {
+        this.batchWaitMillis = batchWaitMillis;
+    }
+
+    /** Whether the method receives a list of events per call, see {@link com.deepexi.eventbus.annotation.Subscribe#batchSize()}. */
+    public boolean isBatch() {
+        return batchSize > 0;
+    }
+
+    /** Whether the method only receives the latest pending event per key, see {@link com.deepexi.eventbus.annotation.Subscribe#conflate()}. */
+    public boolean isConflate() {
+        return conflate;
+    }
+
+    public void setConflate(boolean conflate) {
+        this.conflate = conflate;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public SubscriberInvoker getInvoker() {
+        return invoker;
+    }
+
+    public void setInvoker(SubscriberInvoker invoker) {
+        this.invoker = invoker;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
     @Override
     public String toString() {
         return "SubscribeMethod{" +
@@ -58,6 +124,10 @@ public class SubscribeMethod implements Serializable {
                 ", priority=" + priority +
                 ", eventType=" + eventType +
                 ", name='" + name + '\'' +
+                ", batchSize=" + batchSize +
+                ", batchWaitMillis=" + batchWaitMillis +
+                ", conflate=" + conflate +
+                ", topic='" + topic + '\'' +
                 '}';
     }
 
@@ -66,6 +136,11 @@ public class SubscribeMethod implements Serializable {
         private int priority;
         private Class eventType;
         private String name;
+        private int batchSize;
+        private long batchWaitMillis;
+        private boolean conflate;
+        private String topic;
+        private SubscriberInvoker invoker;
 
         private Builder() {
         }
@@ -94,12 +169,43 @@ public class SubscribeMethod implements Serializable {
             return this;
         }
 
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder withBatchWaitMillis(long batchWaitMillis) {
+            this.batchWaitMillis = batchWaitMillis;
+            return this;
+        }
+
+        public Builder withConflate(boolean conflate) {
+            this.conflate = conflate;
+            return this;
+        }
+
+        public Builder withTopic(String topic) {
+            this.topic = topic;
+            return this;
+        }
+
+        public Builder withInvoker(SubscriberInvoker invoker) {
+            this.invoker = invoker;
+            return this;
+        }
+
         public SubscribeMethod build() {
             SubscribeMethod subscribeMethod = new SubscribeMethod();
             subscribeMethod.setMethod(method);
             subscribeMethod.setPriority(priority);
             subscribeMethod.setEventType(eventType);
             subscribeMethod.setName(name);
+            subscribeMethod.setBatchSize(batchSize);
+            subscribeMethod.setBatchWaitMillis(batchWaitMillis);
+            subscribeMethod.setConflate(conflate);
+            subscribeMethod.setTopic(topic);
+            subscribeMethod.setInvoker(invoker != null ? invoker : SubscriberInvokers.create(method));
+            subscribeMethod.setRetryPolicy(RetryPolicy.of(method));
             return subscribeMethod;
         }
     }
@@ -0,0 +1,218 @@
+package com.deepexi.eventbus;
+
+import cn.hutool.core.collection.CollectionUtil;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.base.Collections;
+import com.deepexi.eventbus.index.SubscriberIndexes;
+import com.deepexi.eventbus.index.SubscriberMethodInfo;
+import com.deepexi.eventbus.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * <p> the subscribe methods of the listener classes, parsed once per class for the whole process
+ * and shared by every bus, along with the invokers prebuilt for them. </p>
+ *
+ * <p>They are kept in a {@link ClassValue}, that is attached to each listener class rather than in
+ * a map of this library: a bus created later registers listeners of a class already seen without
+ * scanning it again, and a class loader that is let go, such as the one of a redeployed
+ * application, is collected along with the methods cached for its classes.
+ */
+final class SubscribeMethods {
+    private static final Logger LOGGER = Logger.getLogger(SubscribeMethods.class.getName());
+
+    /** The subscribe methods of each listener class, empty if it has none. */
+    private static final ClassValue<List<SubscribeMethod>> METHODS = new ClassValue<List<SubscribeMethod>>() {
+        @Override
+        protected List<SubscribeMethod> computeValue(Class<?> listenerClazz) {
+            List<SubscribeMethod> subscribeMethods = findSubscriberMethods(listenerClazz);
+            return subscribeMethods != null
+                    ? java.util.Collections.unmodifiableList(subscribeMethods)
+                    : java.util.Collections.<SubscribeMethod>emptyList();
+        }
+    };
+
+    private SubscribeMethods() {
+    }
+
+    /**
+     * Returns the subscribe methods of {@code listenerClazz}, parsing them on the first call for the
+     * class, or {@code null} if it has none.
+     *
+     * @throws IllegalArgumentException if a subscribe method of the class is invalid, on every call.
+     */
+    static List<SubscribeMethod> of(Class<?> listenerClazz) {
+        List<SubscribeMethod> subscribeMethods = METHODS.get(listenerClazz);
+        return subscribeMethods.isEmpty() ? null : subscribeMethods;
+    }
+
+    /**
+     * parse the subscribe methods of the listener class
+     * @param listenerClazz listener class
+     * @return the method subscribe in the listener
+     */
+    private static List<SubscribeMethod> findSubscriberMethods(Class listenerClazz) {
+        // prefer the build-time index, which needs neither a method scan nor setAccessible
+        SubscriberMethodInfo[] indexedMethods = SubscriberIndexes.find(listenerClazz);
+        return indexedMethods != null
+                ? findIndexedSubscriberMethods(listenerClazz, indexedMethods)
+                : findAnnotatedSubscriberMethods(listenerClazz);
+    }
+
+    /**
+     * build the subscribe methods of the listener from its entries in a
+     * {@link com.deepexi.eventbus.index.SubscriberIndex}
+     * @param listenerClazz listener class
+     * @param indexedMethods the indexed methods of the listener
+     * @return the method subscribe in the listener
+     */
+    private static List<SubscribeMethod> findIndexedSubscriberMethods(Class listenerClazz, SubscriberMethodInfo[] indexedMethods) {
+        List<SubscribeMethod> subscribeMethods = Collections.newArrayList();
+        for (SubscriberMethodInfo info : indexedMethods) {
+            Method method;
+            try {
+                method = info.getDeclaringClass().getDeclaredMethod(info.getMethodName(), info.getEventType());
+            } catch (NoSuchMethodException e) {
+                // the index is stale, the class changed after it was generated
+                LOGGER.warning("Subscriber index is out of date for " + listenerClazz.getName() + ": " + info
+                        + ", falling back to reflection.");
+                return findAnnotatedSubscriberMethods(listenerClazz);
+            }
+            subscribeMethods.add(SubscribeMethod.Builder.aSubscribeMethod()
+                    .withMethod(method)
+                    .withEventType(info.getEventType())
+                    .withName(info.getName())
+                    .withPriority(info.getPriority())
+                    .withInvoker(info.getInvoker())
+                    .build());
+        }
+        return subscribeMethods.size() == 0 ? null : subscribeMethods;
+    }
+
+    /**
+     * scan the listener class and its superclasses for methods annotated with {@link Subscribe}
+     * @param listenerClazz listener class
+     * @return the method subscribe in the listener
+     */
+    private static List<SubscribeMethod> findAnnotatedSubscriberMethods(Class listenerClazz) {
+        Map<MethodIdentifier, SubscribeMethod> identifiers = Collections.newHashMap();
+        List<Method> methods = ReflectionUtils.getMethodByAnnotation(listenerClazz, Subscribe.class);
+        if (CollectionUtil.isEmpty(methods)) {
+            return null;
+        }
+        for (Method method : methods) {
+            if (method.isSynthetic()) {
+                continue;
+            }
+            // check the count of parameters
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length != 1) {
+                throw new IllegalArgumentException("Target method[" + listenerClazz.getName() + "#" + method.getName()
+                        + "] can only be defined in 1 parameter, but found " + parameterTypes.length + " now.");
+            }
+            Subscribe subscriber = method.getAnnotation(Subscribe.class);
+            if (subscriber.conflate() && subscriber.batchSize() > 0) {
+                throw new IllegalArgumentException("Target method[" + listenerClazz.getName() + "#" + method.getName()
+                        + "] can either receive batches or conflate events, but not both.");
+            }
+            String topic = subscriber.topic().isEmpty() ? null : subscriber.topic();
+            if (topic != null) {
+                try {
+                    TopicRegistry.segments(topic, true);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Target method[" + listenerClazz.getName() + "#" + method.getName()
+                            + "] subscribes to an invalid topic: " + e.getMessage(), e);
+                }
+            }
+            String subscriberName = "".equals(subscriber.name().trim()) ? listenerClazz.getName() + "#" + method.getName() : subscriber.name();
+            SubscribeMethod subscribeMethod = SubscribeMethod.Builder.aSubscribeMethod()
+                    .withMethod(method)
+                    .withEventType(subscriber.batchSize() > 0 ? batchEventType(listenerClazz, method) : parameterTypes[0])
+                    .withName(subscriberName)
+                    .withPriority(subscriber.priority())
+                    .withBatchSize(subscriber.batchSize())
+                    .withBatchWaitMillis(subscriber.batchWaitMillis())
+                    .withConflate(subscriber.conflate())
+                    .withTopic(topic)
+                    .build();
+            // the unique checkout of the method
+            MethodIdentifier ident = new MethodIdentifier(method);
+            if (!identifiers.containsKey(ident)) {
+                identifiers.put(ident, subscribeMethod);
+            }
+        }
+        List<SubscribeMethod> subscribeMethods = new ArrayList<>(identifiers.values());
+        if (subscribeMethods.size() == 0) {
+            return null;
+        }
+        return subscribeMethods;
+    }
+
+    /**
+     * get the event type of a batch subscriber method, the element type {@code E} of its
+     * {@code List<E>} parameter
+     * @param listenerClazz listener class
+     * @param method the batch subscriber method
+     * @return the subscribe event type
+     */
+    private static Class<?> batchEventType(Class listenerClazz, Method method) {
+        Subscribe subscriber = method.getAnnotation(Subscribe.class);
+        String target = "Target method[" + listenerClazz.getName() + "#" + method.getName() + "]";
+        if (subscriber.batchWaitMillis() <= 0) {
+            throw new IllegalArgumentException(target + " must wait a positive time for its batches, but found "
+                    + subscriber.batchWaitMillis() + " now.");
+        }
+        Class<?> parameterType = method.getParameterTypes()[0];
+        Type genericType = method.getGenericParameterTypes()[0];
+        if (parameterType == Object.class || !parameterType.isAssignableFrom(List.class)
+                || !(genericType instanceof ParameterizedType)) {
+            throw new IllegalArgumentException(target + " receives batches, its parameter must be a List<E>, but found "
+                    + genericType.getTypeName() + " now.");
+        }
+        Type elementType = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        if (elementType instanceof WildcardType) {
+            elementType = ((WildcardType) elementType).getUpperBounds()[0];
+        }
+        if (elementType instanceof ParameterizedType) {
+            elementType = ((ParameterizedType) elementType).getRawType();
+        }
+        if (!(elementType instanceof Class)) {
+            throw new IllegalArgumentException(target + " receives batches, the element type of its List must be a class, but found "
+                    + elementType.getTypeName() + " now.");
+        }
+        return (Class<?>) elementType;
+    }
+
+    private static final class MethodIdentifier {
+
+        private final String name;
+        private final List<Class<?>> parameterTypes;
+
+        MethodIdentifier(Method method) {
+            this.name = method.getName();
+            this.parameterTypes = Arrays.asList(method.getParameterTypes());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new Object[]{name, parameterTypes});
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (o instanceof MethodIdentifier) {
+                MethodIdentifier ident = (MethodIdentifier) o;
+                return name.equals(ident.name) && parameterTypes.equals(ident.parameterTypes);
+            }
+            return false;
+        }
+    }
+}
@@ -15,11 +15,29 @@
 package com.deepexi.eventbus;
 
 import com.deepexi.eventbus.annotation.AllowConcurrentEvents;
-import com.sun.istack.internal.Nullable;
+import com.deepexi.eventbus.annotation.Retry;
+import com.deepexi.eventbus.base.Discardable;
+import com.deepexi.eventbus.base.MoreExecutors;
+import com.deepexi.eventbus.base.Partitioned;
+import com.deepexi.eventbus.base.PartitionedExecutor;
+import com.deepexi.eventbus.base.Prioritized;
+import com.deepexi.eventbus.base.PriorityExecutor;
+import com.deepexi.eventbus.metrics.InvocationCounter;
+import com.deepexi.eventbus.metrics.SubscriberMetrics;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
@@ -38,80 +56,476 @@ class Subscriber {
 
     /** Creates a {@code Subscriber} for {@code method} on event {@code class} of the {@code listener}. */
     static Subscriber create(EventBus bus, Object listener, SubscribeMethod subscribeMethod) {
+        return create(bus, listener, subscribeMethod, null);
+    }
+
+    /**
+     * Creates a {@code Subscriber} for {@code method} on event {@code class} of the {@code listener},
+     * held only through {@code weakListener} unless it is {@code null}.
+     */
+    static Subscriber create(EventBus bus, Object listener, SubscribeMethod subscribeMethod,
+                             @Nullable WeakReference<Object> weakListener) {
+        if ((subscribeMethod.isBatch() || subscribeMethod.isConflate() || subscribeMethod.getTopic() != null
+                || subscribeMethod.getRetryPolicy() != null) && bus.isJournaled()) {
+            throw new IllegalArgumentException("Subscriber[" + subscribeMethod.getName()
+                    + "] receives batches, conflates events, subscribes to a topic or retries, which a journaled bus cannot keep track of.");
+        }
+        if (subscribeMethod.isBatch()) {
+            return new BatchingSubscriber(bus, listener, subscribeMethod, weakListener);
+        }
+        if (subscribeMethod.isConflate()) {
+            return new ConflatingSubscriber(bus, listener, subscribeMethod, weakListener);
+        }
         return isDeclaredThreadSafe(subscribeMethod.getMethod())
-                ? new Subscriber(bus, listener, subscribeMethod)
-                : new SynchronizedSubscriber(bus, listener, subscribeMethod);
+                ? new Subscriber(bus, listener, subscribeMethod, weakListener)
+                : new SynchronizedSubscriber(bus, listener, subscribeMethod, weakListener);
     }
 
     /** The event bus this subscriber belongs to. */
     private EventBus bus;
 
-    /** The object with the subscriber method. */
-    final Object target;
+    /** The object with the subscriber method, {@code null} if it is held by {@link #weakTarget}. */
+    private final Object target;
+
+    /** The object with the subscriber method if its listener was registered weakly, {@code null} otherwise. */
+    private final WeakReference<Object> weakTarget;
+
+    /** The identity hash code of the object, which outlives a weak target. */
+    private final int targetHash;
 
     /** Subscriber method. */
     private final SubscribeMethod subscribeMethod;
 
+    /** Prebuilt call site of the subscriber method. */
+    private final SubscriberInvoker invoker;
+
     /** Executor to use for dispatching events to this subscriber. */
     private final Executor executor;
 
-    private Subscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod) {
+    /** Whether {@link #executor} runs tasks on the calling thread. */
+    final boolean directExecutor;
+
+    /**
+     * Whether events are handed to {@link #executor} as {@link Delivery} tasks: executors that schedule
+     * by partition key or priority read them, and a conflating subscriber hears when one is discarded.
+     */
+    private final boolean deliveryTasks;
+
+    /** Whether the subscriber method returns a value, which it replies to requests, see {@link #dispatchRequest}. */
+    private final boolean replies;
+
+    /** The retries of the subscriber method, {@code null} if it is not annotated with {@link Retry}. */
+    private final RetryPolicy retryPolicy;
+
+    /** Metrics of this subscriber's name, {@code null} if the bus keeps no metrics. */
+    private final SubscriberMetrics metrics;
+
+    /** Counts the calls of this subscriber, {@code null} if the bus keeps no metrics. */
+    private final InvocationCounter invocations;
+
+    /** What this subscriber's name received of the journal, set and read under the {@link JournalDispatcher}'s lock. */
+    JournalDispatcher.Progress journalProgress;
+
+    /**
+     * The key of the events this subscriber receives, {@code null} for every event of its type. Set
+     * by the registry before the subscriber is published.
+     */
+    Object subscriptionKey;
+
+    private Subscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod,
+                       @Nullable WeakReference<Object> weakTarget) {
         this.bus = bus;
-        this.target = checkNotNull(target);
+        this.target = weakTarget == null ? checkNotNull(target) : null;
+        this.weakTarget = weakTarget;
+        this.targetHash = System.identityHashCode(target);
         this.subscribeMethod = subscribeMethod;
-        subscribeMethod.getMethod().setAccessible(true);
+        this.invoker = subscribeMethod.getInvoker() != null
+                ? subscribeMethod.getInvoker()
+                : SubscriberInvokers.create(subscribeMethod.getMethod());
         this.executor = bus.executor();
+        this.directExecutor = executor == MoreExecutors.directExecutor();
+        this.deliveryTasks = executor instanceof PartitionedExecutor || executor instanceof PriorityExecutor
+                || subscribeMethod.isConflate();
+        this.replies = subscribeMethod.getMethod().getReturnType() != void.class && !subscribeMethod.isBatch();
+        this.retryPolicy = subscribeMethod.getRetryPolicy();
+        this.metrics = bus.metrics() != null ? bus.metrics().subscriber(subscribeMethod.getName()) : null;
+        this.invocations = metrics != null ? metrics.newCounter() : null;
+    }
+
+    /**
+     * Dispatches {@code event} to this subscriber using the proper executor. With a direct executor
+     * the subscriber is called right away, without wrapping the call in a task.
+     */
+    void dispatchEvent(final Object event) {
+        if (directExecutor) {
+            deliver(event);
+            return;
+        }
+        Object enqueue = FlightEvents.beginEnqueue();
+        long enqueueTime = FlightEvents.enqueueTime();
+        if (deliveryTasks) {
+            executor.execute(new Delivery(event, enqueueTime));
+        } else {
+            executor.execute(() -> deliver(event, enqueueTime));
+        }
+        if (enqueue != null) {
+            FlightEvents.commitEnqueue(enqueue, bus.identifier(), event, subscribeMethod.getName(),
+                    subscribeMethod.getPriority());
+        }
     }
 
-    /** Dispatches {@code event} to this subscriber using the proper executor. */
-    final void dispatchEvent(final Object event) {
+    /**
+     * Dispatches {@code event} as part of {@code request}. A subscriber the request {@linkplain
+     * Request#expects(Subscriber) expects} a reply from is called with the event on its own, neither
+     * conflated nor batched, and its result is replied to the request; any other subscriber receives
+     * the event as if it were posted.
+     */
+    final void dispatchRequest(final Object event, final Request request) {
+        if (!request.expects(this)) {
+            dispatchEvent(event);
+            return;
+        }
+        if (directExecutor) {
+            deliverReply(event, 0L, request);
+            return;
+        }
+        Object enqueue = FlightEvents.beginEnqueue();
+        long enqueueTime = FlightEvents.enqueueTime();
+        try {
+            // a Delivery even on plain executors, a bounded queue dropping it tells the request
+            executor.execute(new Delivery(event, enqueueTime, request));
+        } catch (RuntimeException e) {
+            request.reply(null);
+            throw e;
+        }
+        if (enqueue != null) {
+            FlightEvents.commitEnqueue(enqueue, bus.identifier(), event, subscribeMethod.getName(),
+                    subscribeMethod.getPriority());
+        }
+    }
+
+    /** Whether the subscriber method returns a value, which it may reply to {@link EventBus#request(Object, Class)}. */
+    final boolean replies() {
+        return replies;
+    }
+
+    /**
+     * Dispatches the journaled {@code event} of {@code sequence}, and records in the progress of
+     * this subscriber's name that it was queued and, once the call is over, delivered.
+     */
+    final void dispatchJournaled(final Object event, final long sequence) {
+        final JournalDispatcher.Progress progress = journalProgress;
+        Object enqueue = FlightEvents.beginEnqueue();
+        long enqueueTime = FlightEvents.enqueueTime();
         executor.execute(() -> {
-            LOGGER.info("[EventBus-" + subscribeMethod.getName() +"] module starts invoke.");
-            try {
-                invokeSubscriberMethod(event);
-            } catch (InvocationTargetException e) {
-                bus.handleSubscriberException(e.getCause(), context(event));
+            deliver(event, enqueueTime);
+            progress.delivered(sequence);
+        });
+        progress.dispatched(sequence);
+        if (enqueue != null) {
+            FlightEvents.commitEnqueue(enqueue, bus.identifier(), event, subscribeMethod.getName(),
+                    subscribeMethod.getPriority());
+        }
+    }
+
+    /**
+     * Dispatches {@code events} to this subscriber in order, as a single task of the executor
+     * rather than one task per event.
+     */
+    void dispatchEvents(final List<?> events) {
+        if (deliveryTasks) {
+            // the events may belong to different lanes, each is scheduled on its own
+            for (Object event : events) {
+                dispatchEvent(event);
+            }
+            return;
+        }
+        if (directExecutor) {
+            for (Object event : events) {
+                deliver(event);
+            }
+            return;
+        }
+        executor.execute(() -> {
+            for (Object event : events) {
+                deliver(event);
             }
         });
     }
 
     /**
-     * Invokes the subscriber method. This method can be overridden to make the invocation
-     * synchronized.
+     * Dispatches the event of {@code deadLetter} again to this subscriber alone, with all of its
+     * attempts, unless its listener was unregistered or collected since. Neither conflated nor
+     * batched again, a batch is replayed as it failed.
+     *
+     * @return whether the event was dispatched.
      */
-    void invokeSubscriberMethod(Object event) throws InvocationTargetException {
+    final boolean redeliver(DeadLetter deadLetter) {
+        if (!bus.isRegistered(this)) {
+            return false;
+        }
+        if (directExecutor) {
+            invoke(deadLetter.getEvent(), 0L, false, 1);
+        } else {
+            executor.execute(new Delivery(deadLetter.getEvent(), FlightEvents.enqueueTime(), null, 1, deadLetter.getCause()));
+        }
+        return true;
+    }
+
+    /**
+     * Calls the subscriber method with {@code event} on the current thread, hands any exception to
+     * the bus's exception handler and records the call in the subscriber's metrics.
+     */
+    final void deliver(Object event) {
+        deliver(event, 0L);
+    }
+
+    /**
+     * Calls the subscriber method with an event queued at {@code enqueueTime}, see {@link
+     * FlightEvents#enqueueTime()}. Overridden to call it with a newer event instead.
+     */
+    void deliver(Object event, long enqueueTime) {
+        invoke(event, enqueueTime, false, 1);
+    }
+
+    /**
+     * Calls the subscriber method with {@code event} on the current thread, and replies its result
+     * to {@code request}, nothing if it threw.
+     */
+    private void deliverReply(Object event, long enqueueTime, Request request) {
+        Object result = null;
         try {
-            subscribeMethod.getMethod().invoke(target, checkNotNull(event));
-        } catch (IllegalArgumentException e) {
-            throw new Error("Method rejected target/argument: " + event, e);
-        } catch (IllegalAccessException e) {
-            throw new Error("Method became inaccessible: " + event, e);
+            result = invoke(event, enqueueTime, true, 1);
+        } finally {
+            request.reply(result);
+        }
+    }
+
+    /**
+     * Calls the subscriber method for the {@code attempt}th time with {@code event}, counted from 1,
+     * and returns its result if {@code reply}, {@code null} if it threw.
+     */
+    private Object invoke(Object event, long enqueueTime, boolean reply, int attempt) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            logInvoke();
+        }
+        Object recording = FlightEvents.beginInvocation();
+        if (recording != null) {
+            return invokeRecorded(event, enqueueTime, recording, reply, attempt);
+        }
+        return call(event, reply, attempt);
+    }
+
+    private Object invokeRecorded(Object event, long enqueueTime, Object recording, boolean reply, int attempt) {
+        try {
+            return call(event, reply, attempt);
+        } finally {
+            FlightEvents.commitInvocation(recording, bus.identifier(), event, subscribeMethod.getName(),
+                    subscribeMethod.getPriority(), enqueueTime);
+        }
+    }
+
+    private Object call(Object event, boolean reply, int attempt) {
+        if (invocations != null && invocations.increment()) {
+            return invokeTimed(event, reply, attempt);
+        }
+        try {
+            return invokeSubscriberMethod(event, reply);
         } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof Error) {
-                throw (Error) e.getCause();
+            handleException(e, event, reply, attempt);
+            return null;
+        }
+    }
+
+    /** Calls the subscriber method and records how long it took, kept apart from the common path. */
+    private Object invokeTimed(Object event, boolean reply, int attempt) {
+        long start = System.nanoTime();
+        try {
+            return invokeSubscriberMethod(event, reply);
+        } catch (InvocationTargetException e) {
+            handleException(e, event, reply, attempt);
+            return null;
+        } finally {
+            metrics.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /** Called when the executor drops the delivery of {@code event}, which will never run. */
+    void discarded(Object event) {
+    }
+
+    private void logInvoke() {
+        LOGGER.fine("[EventBus-" + subscribeMethod.getName() + "] module starts invoke.");
+    }
+
+    /**
+     * Handles the exception of the {@code attempt}th call with {@code event}: schedules the next
+     * attempt if the subscriber retries, or gives up on the event.
+     */
+    private void handleException(InvocationTargetException e, Object event, boolean reply, int attempt) {
+        if (metrics != null) {
+            metrics.onException();
+        }
+        if (retryPolicy == null || reply) {
+            bus.handleSubscriberException(e.getCause(), context(event));
+        } else if (retryPolicy.retries(attempt)) {
+            scheduleRetry(event, attempt + 1, e.getCause());
+        } else {
+            giveUp(event, attempt, e.getCause());
+        }
+    }
+
+    /**
+     * Hands the {@code attempt}th call with {@code event} to the executor once its backoff has
+     * elapsed, or to the common pool if calls are direct, rather than to the shared scheduler thread.
+     */
+    private void scheduleRetry(Object event, int attempt, Throwable cause) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "[EventBus-" + subscribeMethod.getName() + "] attempt " + (attempt - 1)
+                    + " failed, retrying " + event, cause);
+        }
+        MoreExecutors.scheduler().schedule(() -> {
+            try {
+                if (directExecutor) {
+                    ForkJoinPool.commonPool().execute(() -> invoke(event, 0L, false, attempt));
+                } else {
+                    executor.execute(new Delivery(event, FlightEvents.enqueueTime(), null, attempt, cause));
+                }
+            } catch (RuntimeException e) {
+                // refused by a full or shut down executor
+                giveUp(event, attempt - 1, cause);
+            }
+        }, retryPolicy.backoffNanos(attempt - 1), TimeUnit.NANOSECONDS);
+    }
+
+    /** Keeps {@code event} as a dead letter of the bus, and hands the last exception to its handler. */
+    private void giveUp(Object event, int attempts, Throwable cause) {
+        bus.deadLetter(new DeadLetter(event, this, attempts, cause));
+        bus.handleSubscriberException(cause, context(event));
+    }
+
+    /**
+     * Invokes the subscriber method, and returns its result if {@code reply}, {@code null}
+     * otherwise. This method can be overridden to make the invocation synchronized.
+     */
+    Object invokeSubscriberMethod(Object event, boolean reply) throws InvocationTargetException {
+        Object target = getTarget();
+        if (target == null) {
+            // a weakly registered listener was collected, the registry is about to forget it
+            return null;
+        }
+        try {
+            if (reply) {
+                return invoker.call(target, checkNotNull(event));
             }
+            invoker.invoke(target, checkNotNull(event));
+            return null;
+        } catch (Error e) {
             throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
         }
     }
 
+    /**
+     * A call of the subscriber with an event, for executors that schedule tasks by what they carry.
+     * A {@link PartitionedExecutor} runs it on the lane of the event's key; events without a key, and
+     * batches of a batch subscriber, run on the lane of the subscriber, which keeps them in posting
+     * order for this subscriber. A {@link PriorityExecutor} runs it by the subscriber's priority.
+     */
+    private final class Delivery implements Runnable, Partitioned, Prioritized, Discardable {
+        private final Object event;
+        private final long enqueueTime;
+
+        /** The request replied to, {@code null} for a posted event. */
+        private final Request request;
+
+        /** The attempt of a retried or replayed call, counted from 1, 0 for a posted event. */
+        private final int attempt;
+
+        /** The exception the event last failed with, {@code null} for a posted event. */
+        private final Throwable cause;
+
+        private Delivery(Object event, long enqueueTime) {
+            this(event, enqueueTime, null);
+        }
+
+        private Delivery(Object event, long enqueueTime, Request request) {
+            this(event, enqueueTime, request, 0, null);
+        }
+
+        private Delivery(Object event, long enqueueTime, Request request, int attempt, Throwable cause) {
+            this.event = event;
+            this.enqueueTime = enqueueTime;
+            this.request = request;
+            this.attempt = attempt;
+            this.cause = cause;
+        }
+
+        @Override
+        public Object partitionKey() {
+            Object key = subscribeMethod.isBatch() ? null : bus.partitionKey(event);
+            return key != null ? key : Subscriber.this;
+        }
+
+        @Override
+        public int priority() {
+            return subscribeMethod.getPriority();
+        }
+
+        @Override
+        public void run() {
+            if (request != null) {
+                deliverReply(event, enqueueTime, request);
+            } else if (attempt > 0) {
+                // called as is, a conflating subscriber has no pending event for it
+                invoke(event, enqueueTime, false, attempt);
+            } else {
+                deliver(event, enqueueTime);
+            }
+        }
+
+        @Override
+        public void discarded() {
+            if (request != null) {
+                request.reply(null);
+            } else if (attempt > 0) {
+                giveUp(event, attempt - 1, cause);
+            } else {
+                Subscriber.this.discarded(event);
+            }
+        }
+    }
+
+    /** Whether a post of {@code event} reaches this subscriber, by its event type and subscription key. */
+    final boolean accepts(Object event) {
+        return subscribeMethod.getEventType().isInstance(event)
+                && (subscriptionKey == null || subscriptionKey.equals(bus.partitionKey(event)));
+    }
+
     /** Gets the context for the given event. */
     private SubscriberExceptionContext context(Object event) {
-        return new SubscriberExceptionContext(bus, event, target, subscribeMethod);
+        return new SubscriberExceptionContext(bus, event, getTarget(), subscribeMethod);
     }
 
     @Override
     public final int hashCode() {
-        return (31 + subscribeMethod.getMethod().hashCode()) * 31 + System.identityHashCode(target);
+        return (31 + subscribeMethod.getMethod().hashCode()) * 31 + targetHash;
     }
 
     @Override
     public final boolean equals(@Nullable Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (obj instanceof Subscriber) {
             Subscriber that = (Subscriber) obj;
+            Object target = getTarget();
             // Use == so that different equal instances will still receive events.
             // We only guard against the case that the same object is registered
-            // multiple times
-            return target == that.target && subscribeMethod.getMethod().equals(that.subscribeMethod.getMethod());
+            // multiple times. Subscribers of collected listeners are only equal to themselves.
+            return target != null && target == that.getTarget()
+                    && subscribeMethod.getMethod().equals(that.subscribeMethod.getMethod());
         }
         return false;
     }
@@ -127,19 +541,270 @@ class Subscriber {
     /**
      * Subscriber that synchronizes invocations of a method to ensure that only one thread may enter
      * the method at a time.
+     *
+     * <p>Uses a lock rather than a monitor: a virtual thread blocking on I/O inside a
+     * {@code synchronized} block stays pinned to its carrier thread.
      */
     static final class SynchronizedSubscriber extends Subscriber {
+        private final ReentrantLock invocationLock = new ReentrantLock();
 
-        private SynchronizedSubscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod) {
-            super(bus, target, subscribeMethod);
+        private SynchronizedSubscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod,
+                                       @Nullable WeakReference<Object> weakTarget) {
+            super(bus, target, subscribeMethod, weakTarget);
         }
 
         @Override
-        void invokeSubscriberMethod(Object event) throws InvocationTargetException {
-            synchronized (this) {
-                super.invokeSubscriberMethod(event);
+        Object invokeSubscriberMethod(Object event, boolean reply) throws InvocationTargetException {
+            invocationLock.lock();
+            try {
+                return super.invokeSubscriberMethod(event, reply);
+            } finally {
+                invocationLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Subscriber whose method receives a list of events per call. Events are coalesced until the
+     * batch is full or its first event has waited the maximum time, the batch is then dispatched
+     * like a single event. A batch flushed by the timeout is handed to the executor from the
+     * {@linkplain MoreExecutors#scheduler() shared scheduler} thread, or to the common pool if calls
+     * are direct, so the method never runs on the scheduler thread.
+     */
+    static final class BatchingSubscriber extends Subscriber {
+        private final int batchSize;
+        private final long batchWaitNanos;
+        private final boolean threadSafe;
+
+        /** Serializes calls of the method unless it is thread-safe, see {@link SynchronizedSubscriber}. */
+        private final ReentrantLock invocationLock = new ReentrantLock();
+
+        /** Guards {@link #pending} and {@link #generation}, separately from the invocation lock. */
+        private final Object lock = new Object();
+
+        /** The batch being filled, {@code null} when no event is pending. */
+        private List<Object> pending;
+
+        /** Incremented whenever a batch is taken, so a timer never flushes a newer batch. */
+        private long generation;
+
+        /** Whether a flush of the pending batch is scheduled. */
+        private boolean flushScheduled;
+
+        private BatchingSubscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod,
+                                   @Nullable WeakReference<Object> weakTarget) {
+            super(bus, target, subscribeMethod, weakTarget);
+            this.batchSize = subscribeMethod.getBatchSize();
+            this.batchWaitNanos = TimeUnit.MILLISECONDS.toNanos(subscribeMethod.getBatchWaitMillis());
+            this.threadSafe = isDeclaredThreadSafe(subscribeMethod.getMethod());
+        }
+
+        @Override
+        void dispatchEvent(Object event) {
+            List<Object> batch;
+            synchronized (lock) {
+                batch = add(event);
+                scheduleFlush();
+            }
+            if (batch != null) {
+                handOff(batch);
+            }
+        }
+
+        @Override
+        void dispatchEvents(List<?> events) {
+            List<List<Object>> batches = null;
+            synchronized (lock) {
+                for (Object event : events) {
+                    List<Object> batch = add(event);
+                    if (batch != null) {
+                        if (batches == null) {
+                            batches = new ArrayList<>();
+                        }
+                        batches.add(batch);
+                    }
+                }
+                // only the batch left partially filled needs a timer
+                scheduleFlush();
+            }
+            if (batches != null) {
+                for (List<Object> batch : batches) {
+                    handOff(batch);
+                }
+            }
+        }
+
+        /** Adds {@code event} to the pending batch and returns the batch if it is full. */
+        private List<Object> add(Object event) {
+            checkNotNull(event);
+            if (pending == null) {
+                pending = new ArrayList<>(Math.min(batchSize, 64));
+            }
+            pending.add(event);
+            return pending.size() >= batchSize ? take() : null;
+        }
+
+        /** Schedules the flush of the pending batch, if there is one and it has none yet. */
+        private void scheduleFlush() {
+            if (pending != null && !flushScheduled) {
+                flushScheduled = true;
+                final long batchGeneration = generation;
+                MoreExecutors.scheduler().schedule(() -> flush(batchGeneration), batchWaitNanos, TimeUnit.NANOSECONDS);
             }
         }
+
+        private List<Object> take() {
+            List<Object> batch = pending;
+            pending = null;
+            flushScheduled = false;
+            generation++;
+            return batch;
+        }
+
+        /** Flushes the batch of {@code batchGeneration} if it was not taken in the meantime. */
+        private void flush(long batchGeneration) {
+            List<Object> batch;
+            synchronized (lock) {
+                if (batchGeneration != generation || pending == null) {
+                    return;
+                }
+                batch = take();
+            }
+            try {
+                if (directExecutor) {
+                    ForkJoinPool.commonPool().execute(() -> handOff(batch));
+                } else {
+                    handOff(batch);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to dispatch a batch of " + batch.size() + " events to "
+                        + getSubscribeMethod().getName(), e);
+            }
+        }
+
+        private void handOff(List<Object> batch) {
+            super.dispatchEvent(Collections.unmodifiableList(batch));
+        }
+
+        @Override
+        Object invokeSubscriberMethod(Object event, boolean reply) throws InvocationTargetException {
+            if (threadSafe) {
+                return super.invokeSubscriberMethod(event, reply);
+            }
+            invocationLock.lock();
+            try {
+                return super.invokeSubscriberMethod(event, reply);
+            } finally {
+                invocationLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Subscriber that keeps the latest pending event per event class and key, see {@link
+     * com.deepexi.eventbus.annotation.Subscribe#conflate()}, so that the events of different classes
+     * a subscriber of their supertype receives never replace each other. An event is handed to the
+     * executor only when its class and key have no pending event; a newer event with the key replaces the pending one, and the
+     * task calls the method with whichever event is pending for the key when it runs.
+     */
+    static final class ConflatingSubscriber extends Subscriber {
+        private final boolean threadSafe;
+
+        /** Serializes calls of the method unless it is thread-safe, see {@link SynchronizedSubscriber}. */
+        private final ReentrantLock invocationLock = new ReentrantLock();
+
+        /** The key of the events without one. */
+        private static final Object NO_KEY = new Object();
+
+        /** The latest event of each class and key that has a task queued for it, by class and then by key. */
+        private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Object>> pending = new ConcurrentHashMap<>();
+
+        private ConflatingSubscriber(EventBus bus, Object target, SubscribeMethod subscribeMethod,
+                                     @Nullable WeakReference<Object> weakTarget) {
+            super(bus, target, subscribeMethod, weakTarget);
+            this.threadSafe = isDeclaredThreadSafe(subscribeMethod.getMethod());
+        }
+
+        @Override
+        void dispatchEvent(Object event) {
+            ConcurrentMap<Object, Object> ofClass = pending(checkNotNull(event).getClass());
+            Object key = conflationKey(event);
+            if (ofClass.put(key, event) != null) {
+                return;
+            }
+            try {
+                super.dispatchEvent(event);
+            } catch (RuntimeException | Error e) {
+                // the task was refused, a later event of the key has to queue a new one
+                ofClass.remove(key);
+                throw e;
+            }
+        }
+
+        @Override
+        void dispatchEvents(List<?> events) {
+            for (Object event : events) {
+                dispatchEvent(event);
+            }
+        }
+
+        @Override
+        void deliver(Object event, long enqueueTime) {
+            if (threadSafe) {
+                deliverLatest(event, enqueueTime);
+                return;
+            }
+            // taking the event under the lock as well keeps the calls of a key in posting order
+            invocationLock.lock();
+            try {
+                deliverLatest(event, enqueueTime);
+            } finally {
+                invocationLock.unlock();
+            }
+        }
+
+        /** Also serializes the retries and replays, which call the method without {@link #deliver}. */
+        @Override
+        Object invokeSubscriberMethod(Object event, boolean reply) throws InvocationTargetException {
+            if (threadSafe) {
+                return super.invokeSubscriberMethod(event, reply);
+            }
+            invocationLock.lock();
+            try {
+                return super.invokeSubscriberMethod(event, reply);
+            } finally {
+                invocationLock.unlock();
+            }
+        }
+
+        private void deliverLatest(Object event, long enqueueTime) {
+            Object latest = pending(event.getClass()).remove(conflationKey(event));
+            if (latest != null) {
+                super.deliver(latest, enqueueTime);
+            }
+        }
+
+        @Override
+        void discarded(Object event) {
+            pending(event.getClass()).remove(conflationKey(event));
+        }
+
+        /** The pending events of {@code eventClass}. */
+        private ConcurrentMap<Object, Object> pending(Class<?> eventClass) {
+            ConcurrentMap<Object, Object> ofClass = pending.get(eventClass);
+            if (ofClass == null) {
+                ConcurrentMap<Object, Object> created = new ConcurrentHashMap<>();
+                ofClass = pending.putIfAbsent(eventClass, created);
+                ofClass = ofClass != null ? ofClass : created;
+            }
+            return ofClass;
+        }
+
+        /** The key of the bus for {@code event}, {@link #NO_KEY} if it has none. */
+        private Object conflationKey(Object event) {
+            Object key = getBus().partitionKey(event);
+            return key != null ? key : NO_KEY;
+        }
     }
 
     public EventBus getBus() {
@@ -150,8 +815,9 @@ class Subscriber {
         this.bus = bus;
     }
 
+    /** Returns the object with the subscriber method, {@code null} once a weakly registered listener is collected. */
     public Object getTarget() {
-        return target;
+        return weakTarget != null ? weakTarget.get() : target;
     }
 
     public SubscribeMethod getSubscribeMethod() {
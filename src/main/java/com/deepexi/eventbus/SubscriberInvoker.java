@@ -0,0 +1,36 @@
+package com.deepexi.eventbus;
+
+/**
+ * <p> a strongly typed call site for a method annotated with {@link com.deepexi.eventbus.annotation.Subscribe},
+ * built once when the listener class is parsed and reused for every delivered event. </p>
+ *
+ * <p>Implementations throw whatever the subscriber method throws, unwrapped; the {@link Subscriber}
+ * is responsible for routing it to the bus's {@link SubscriberExceptionHandler}.
+ */
+@FunctionalInterface
+public interface SubscriberInvoker {
+
+    /**
+     * Invokes the subscriber method on {@code target} with {@code event} as its only argument.
+     *
+     * @param target the listener instance, ignored for static methods
+     * @param event the event to deliver
+     * @throws Throwable anything thrown by the subscriber method
+     */
+    void invoke(Object target, Object event) throws Throwable;
+
+    /**
+     * Invokes the subscriber method like {@link #invoke(Object, Object)} and returns its result,
+     * {@code null} for a method returning {@code void}. Used to reply to {@link
+     * EventBus#request(Object, Class)}, the default implementation returns {@code null}.
+     *
+     * @param target the listener instance, ignored for static methods
+     * @param event the event to deliver
+     * @return the result of the subscriber method, boxed if primitive
+     * @throws Throwable anything thrown by the subscriber method
+     */
+    default Object call(Object target, Object event) throws Throwable {
+        invoke(target, event);
+        return null;
+    }
+}
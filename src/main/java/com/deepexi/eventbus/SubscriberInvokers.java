@@ -0,0 +1,205 @@
+package com.deepexi.eventbus;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> factory of {@link SubscriberInvoker}s, the strategies are tried in order: </p>
+ *
+ * <ol>
+ *   <li>a class spun by {@link LambdaMetafactory} that calls the method directly, as a lambda
+ *       would. The JIT sees a monomorphic call it can inline. Only possible for public instance
+ *       methods of public classes that are visible from this library's class loader;
+ *   <li>a {@link MethodHandle} bound to the method, which works for any accessible method and
+ *       avoids the argument array and access checks of reflection;
+ *   <li>plain {@link Method#invoke(Object, Object...)} as a last resort.
+ * </ol>
+ *
+ * <p>The invoker of a method returning a value also returns it from {@link
+ * SubscriberInvoker#call(Object, Object)}. A spun class cannot, it is paired with a method handle
+ * for that purpose.
+ */
+final class SubscriberInvokers {
+    private static final Logger LOGGER = Logger.getLogger(SubscriberInvokers.class.getName());
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType CALL_TYPE = MethodType.methodType(Object.class, Object.class, Object.class);
+
+    private SubscriberInvokers() {}
+
+    /** Creates the fastest available invoker for {@code method}. */
+    static SubscriberInvoker create(Method method) {
+        checkNotNull(method);
+        if (isLambdaCompatible(method)) {
+            try {
+                SubscriberInvoker invoker = lambdaInvoker(method);
+                return method.getReturnType() == void.class
+                        ? invoker
+                        : new ReplyingInvoker(invoker, methodHandleInvoker(method));
+            } catch (Throwable e) {
+                LOGGER.log(Level.FINE, "Failed to spin a direct invoker for " + method + ", falling back.", e);
+            }
+        }
+        try {
+            method.setAccessible(true);
+            return methodHandleInvoker(method);
+        } catch (Throwable e) {
+            LOGGER.log(Level.FINE, "Failed to create a method handle for " + method + ", falling back.", e);
+        }
+        return reflectiveInvoker(method);
+    }
+
+    /** Creates an invoker backed by {@link Method#invoke(Object, Object...)}. */
+    static SubscriberInvoker reflectiveInvoker(Method method) {
+        method.setAccessible(true);
+        return new ReflectiveInvoker(method);
+    }
+
+    private static SubscriberInvoker lambdaInvoker(Method method) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle implementation = lookup.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                MethodType.methodType(SubscriberInvoker.class),
+                INVOKER_TYPE,
+                implementation,
+                MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+        return (SubscriberInvoker) site.getTarget().invokeExact();
+    }
+
+    private static SubscriberInvoker methodHandleInvoker(Method method) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return method.getReturnType() == void.class
+                ? new MethodHandleInvoker(handle.asType(INVOKER_TYPE))
+                : new CallingMethodHandleInvoker(handle.asType(CALL_TYPE));
+    }
+
+    /**
+     * The generated class lives in this library's class loader, so the listener and event classes
+     * must be resolvable from there, and the method must be callable without access checks.
+     */
+    private static boolean isLambdaCompatible(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        Class<?> eventType = method.getParameterTypes()[0];
+        return !Modifier.isStatic(method.getModifiers())
+                && Modifier.isPublic(method.getModifiers())
+                && isPublic(declaringClass)
+                && isPublic(eventType)
+                && isVisible(declaringClass)
+                && isVisible(eventType);
+    }
+
+    private static boolean isPublic(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return !clazz.isPrimitive();
+    }
+
+    private static boolean isVisible(Class<?> clazz) {
+        ClassLoader loader = SubscriberInvokers.class.getClassLoader();
+        try {
+            return Class.forName(clazz.getName(), false, loader) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /** Invoker that calls an exactly typed {@link MethodHandle}. */
+    private static final class MethodHandleInvoker implements SubscriberInvoker {
+        private final MethodHandle handle;
+
+        private MethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            handle.invokeExact(target, event);
+        }
+    }
+
+    /** Invoker that calls an exactly typed {@link MethodHandle} of a method returning a value. */
+    private static final class CallingMethodHandleInvoker implements SubscriberInvoker {
+        private final MethodHandle handle;
+
+        private CallingMethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            call(target, event);
+        }
+
+        @Override
+        public Object call(Object target, Object event) throws Throwable {
+            return (Object) handle.invokeExact(target, event);
+        }
+    }
+
+    /** Invoker that posts through a spun class and replies through a method handle. */
+    private static final class ReplyingInvoker implements SubscriberInvoker {
+        private final SubscriberInvoker invoker;
+        private final SubscriberInvoker caller;
+
+        private ReplyingInvoker(SubscriberInvoker invoker, SubscriberInvoker caller) {
+            this.invoker = invoker;
+            this.caller = caller;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            invoker.invoke(target, event);
+        }
+
+        @Override
+        public Object call(Object target, Object event) throws Throwable {
+            return caller.call(target, event);
+        }
+    }
+
+    /** Invoker that goes through core reflection. */
+    private static final class ReflectiveInvoker implements SubscriberInvoker {
+        private final Method method;
+
+        private ReflectiveInvoker(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public void invoke(Object target, Object event) throws Throwable {
+            call(target, event);
+        }
+
+        @Override
+        public Object call(Object target, Object event) throws Throwable {
+            try {
+                return method.invoke(target, event);
+            } catch (IllegalArgumentException e) {
+                throw new Error("Method rejected target/argument: " + event, e);
+            } catch (IllegalAccessException e) {
+                throw new Error("Method became inaccessible: " + event, e);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -14,20 +14,23 @@
 
 package com.deepexi.eventbus;
 
-import cn.hutool.core.collection.CollectionUtil;
-import com.deepexi.eventbus.util.ReflectionUtils;
-import com.sun.istack.internal.Nullable;
-import com.deepexi.eventbus.annotation.Subscribe;
 import com.deepexi.eventbus.base.Collections;
 
-import java.lang.reflect.Method;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
 
@@ -43,169 +46,693 @@ final class SubscriberRegistry {
      */
     private static final Logger LOGGER = Logger.getLogger(SubscriberRegistry.class.getName());
 
+    /** The subscribers of an event type nobody subscribes to. */
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
     /**
      * All registered subscribers, indexed by event type.
      *
-     * <p>The {@link java.util.List List} values make it easy and relatively lightweight to get an
-     * immutable snapshot of all current subscribers to an event without any locking.
+     * <p>The values are immutable arrays sorted by descending priority. Writers hold the registry
+     * lock and replace a whole array at once, so posting threads read a consistent snapshot
+     * without any locking or iterator allocation.
      */
-    private final ConcurrentMap<Class<?>, List<Subscriber>> subscribersInSameEventType = Collections.newConcurrentMap();
+    private final ConcurrentMap<Class<?>, Subscriber[]> subscribersInSameEventType = Collections.newConcurrentMap();
+
+    /**
+     * The subscribers of every concrete event class posted so far: the subscribers of the class,
+     * its superclasses and all interfaces it implements, merged into one array sorted by
+     * descending priority.
+     *
+     * <p>Entries are computed under the registry lock the first time a class is posted and
+     * recomputed, again under the lock, when a subscriber of one of its supertypes is registered
+     * or unregistered. Posting is therefore a single map lookup.
+     */
+    private final ConcurrentMap<Class<?>, Subscriber[]> subscribersInSameEventClass = Collections.newConcurrentMap();
+
+    /**
+     * The subscribers registered for the events of one key, indexed by event type and key. The
+     * values are immutable arrays sorted by descending priority. Only used under the registry lock.
+     */
+    private final Map<Class<?>, Map<Object, Subscriber[]>> keyedSubscribersInSameEventType = Collections.newHashMap();
+
+    /**
+     * For the event classes posted so far with subscribers registered by key in the class or one of
+     * its supertypes: for each such key, the subscribers of the key in the class and its supertypes.
+     * They are merged with those of {@link #subscribersInSameEventClass} when an event of the key is
+     * posted, see {@link KeyedSubscribers}. Posting an event of a key nobody registered for falls
+     * back to {@link #subscribersInSameEventClass}, so a post reaches the subscribers of its key
+     * without visiting those of other keys.
+     *
+     * <p>Entries are maintained under the registry lock, one key at a time when a subscriber is
+     * registered by key. A change to the subscribers of every key leaves them as they are.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, KeyedSubscribers>> keyedSubscribersInSameEventClass =
+            Collections.newConcurrentMap();
+
     /**
      * record the register listeners in EventBus, the value is the listener's subscribe methods
      */
     private final ConcurrentMap<Object, List<Subscriber>> subscribersInSameListener = Collections.newConcurrentMap();
 
-    private final ConcurrentMap<Class, List<SubscribeMethod>> classSubscribeMethods = Collections.newConcurrentMap();
+    /**
+     * The subscribers of the listeners registered weakly, by a weak reference to the listener that
+     * is enqueued once it is collected, see {@link WeakListener}. Only used under the registry lock.
+     */
+    private final Map<WeakListener, List<Subscriber>> subscribersInSameWeakListener = Collections.newHashMap();
+
+    /**
+     * The references of the listeners registered weakly that were collected, see {@link
+     * #expungeStaleListeners()}.
+     */
+    private final ReferenceQueue<Object> staleListeners = new ReferenceQueue<>();
+
+    /** The subscribers of a topic pattern, which are not indexed by event type. */
+    private final TopicRegistry topics;
 
     /** The event bus this registry belongs to. */
     private final EventBus bus;
 
     SubscriberRegistry(EventBus bus) {
         this.bus = checkNotNull(bus);
+        this.topics = new TopicRegistry(bus);
     }
 
     /** Registers all subscriber methods on the given listener object. */
-    synchronized void register(Object listener) {
-        Class clazz = listener.getClass();
-        if (subscribersInSameListener.get(listener) != null) {
-            LOGGER.info("Listener[" + clazz.getName() + ": " + listener + "] has been register in EventBus, ignore this register.");
+    void register(Object listener) {
+        register(listener, null);
+    }
+
+    /**
+     * Registers all subscriber methods on the given listener object, for the events of {@code key}
+     * only unless it is {@code null}, then hands them the sticky events of the bus, outside of the
+     * registry lock.
+     */
+    void register(Object listener, @Nullable Object key) {
+        register(listener, key, false);
+    }
+
+    /**
+     * Same as {@link #register(Object, Object)}, the listener being only weakly reachable from the
+     * registry and its subscribers if {@code weak}: once it is collected, its subscribers are
+     * unregistered by the next registration, unregistration or post.
+     */
+    void register(Object listener, @Nullable Object key, boolean weak) {
+        List<Subscriber> registered = add(listener, key, weak);
+        StickyEvents stickyEvents = bus.stickyEvents();
+        if (registered != null && stickyEvents != null) {
+            dispatchStickyEvents(registered, stickyEvents.snapshot());
+        }
+    }
+
+    /** Registers all subscriber methods on the given listener object, and returns their subscribers. */
+    private synchronized List<Subscriber> add(Object listener, @Nullable Object key, boolean weak) {
+        expungeStaleListeners();
+        if (listenerSubscribers(listener) != null) {
+            LOGGER.info("Listener[" + listener.getClass().getName() + ": " + listener + "] has been register in EventBus, ignore this register.");
+            return null;
+        }
+        WeakListener weakListener = weak ? new WeakListener(listener, staleListeners) : null;
+        List<Subscriber> created = createSubscribers(listener, key, weakListener);
+        if (created == null) {
+            return null;
+        }
+        doRegister(listener, created, weakListener);
+        return created;
+    }
+
+    /**
+     * Registers all subscriber methods on each of {@code listeners}, as {@link #register(Object)}
+     * one by one would, then hands them the sticky events of the bus. The listener classes are
+     * scanned and the subscribers created in parallel, outside of the registry lock; under the lock
+     * the new subscribers of each event type are merged into it with a single sort, and each event
+     * class they change is republished once.
+     */
+    void registerAll(Collection<?> listeners) {
+        List<Object> candidates = new ArrayList<>(listeners.size());
+        for (Object listener : listeners) {
+            candidates.add(checkNotNull(listener));
+        }
+        // the classes not scanned yet are scanned once each, in parallel
+        candidates.stream().map(Object::getClass).distinct().collect(Collectors.toList())
+                .parallelStream().forEach(SubscribeMethods::of);
+        List<List<Subscriber>> created = candidates.parallelStream()
+                .map(listener -> createSubscribers(listener, null, null))
+                .collect(Collectors.toList());
+        List<Subscriber> registered = addAll(candidates, created);
+        StickyEvents stickyEvents = bus.stickyEvents();
+        if (!registered.isEmpty() && stickyEvents != null) {
+            dispatchStickyEvents(registered, stickyEvents.snapshot());
+        }
+    }
+
+    /**
+     * Registers the subscribers {@code created} for each of {@code listeners}, skipping those already
+     * registered, and returns the subscribers registered.
+     */
+    private synchronized List<Subscriber> addAll(List<Object> listeners, List<List<Subscriber>> created) {
+        expungeStaleListeners();
+        List<Subscriber> registered = new ArrayList<>();
+        for (int i = 0; i < listeners.size(); i++) {
+            Object listener = listeners.get(i);
+            List<Subscriber> listenerSubscribers = created.get(i);
+            if (listenerSubscribers == null) {
+                continue;
+            }
+            if (listenerSubscribers(listener) != null) {
+                LOGGER.info("Listener[" + listener.getClass().getName() + ": " + listener + "] has been register in EventBus, ignore this register.");
+                continue;
+            }
+            subscribersInSameListener.put(listener, listenerSubscribers);
+            registered.addAll(listenerSubscribers);
+        }
+        addSubscribers(registered, null);
+        return registered;
+    }
+
+    /**
+     * Dispatches each of {@code events}, oldest first, to the {@code registered} subscribers of its
+     * type, highest priority first as a post would.
+     */
+    private static void dispatchStickyEvents(List<Subscriber> registered, List<Object> events) {
+        if (events.isEmpty()) {
             return;
         }
+        List<Subscriber> byPriority = new ArrayList<>(registered);
+        byPriority.sort((s1, s2) -> Integer.compare(s2.getSubscribeMethod().getPriority(), s1.getSubscribeMethod().getPriority()));
+        for (Object event : events) {
+            for (Subscriber subscriber : byPriority) {
+                // sticky events were posted without a topic
+                if (subscriber.getSubscribeMethod().getTopic() == null && subscriber.accepts(event)) {
+                    subscriber.dispatchEvent(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * create the Subscribers of the listener, all of them first, so that a subscriber the bus
+     * refuses leaves nothing registered
+     * @param listener listener
+     * @param key the key of the events the listener receives, {@code null} for all events
+     * @param weakListener the weak reference the listener is held by, {@code null} to hold it strongly
+     * @return the subscribers, or {@code null} if the listener has no subscribe methods
+     */
+    private List<Subscriber> createSubscribers(Object listener, @Nullable Object key, @Nullable WeakListener weakListener) {
         // get the subscribe methods in the listener
-        List<SubscribeMethod> subscribeMethods = findSubscriberMethods(clazz);
+        List<SubscribeMethod> subscribeMethods = SubscribeMethods.of(listener.getClass());
         if (subscribeMethods == null) {
-            LOGGER.info("Listener[" + clazz.getName() + ": " + listener + "] has no subscribed methods, ignore this register.");
-            return;
+            LOGGER.info("Listener[" + listener.getClass().getName() + ": " + listener + "] has no subscribed methods, ignore this register.");
+            return null;
         }
-        // create new Subscriber and register into subscribersInSameEventType
-        doRegister(listener, subscribeMethods);
+        List<Subscriber> created = Collections.newArrayList();
+        for (SubscribeMethod subscribeMethod : subscribeMethods) {
+            Subscriber subscriber = Subscriber.create(bus, listener, subscribeMethod, weakListener);
+            subscriber.subscriptionKey = key;
+            created.add(subscriber);
+        }
+        return created;
     }
 
     /**
-     * create the Subscriber and register in subscribersInSameEventType
+     * register the Subscribers of the listener in subscribersInSameEventType
      * @param listener listener
-     * @param subscribeMethods the subscribe methods in the listener
+     * @param listenerSubscribers the subscribers of the listener, all of the same key
+     * @param weakListener the weak reference the listener is held by, {@code null} to hold it strongly
      */
-    private void doRegister(Object listener, List<SubscribeMethod> subscribeMethods) {
-        List<Subscriber> listenerSubscribers = Collections.newArrayList();
-        for (SubscribeMethod subscribeMethod : subscribeMethods) {
-            Class eventType = subscribeMethod.getEventType();
-            List<Subscriber> subscribers = subscribersInSameEventType.computeIfAbsent(eventType, k -> Collections.newArrayList());
-            Subscriber subscriber = Subscriber.create(bus, listener, subscribeMethod);
-            if (subscribers.contains(subscriber)) {
+    private void doRegister(Object listener, List<Subscriber> listenerSubscribers, @Nullable WeakListener weakListener) {
+        if (weakListener != null) {
+            subscribersInSameWeakListener.put(weakListener, listenerSubscribers);
+        } else {
+            subscribersInSameListener.put(listener, listenerSubscribers);
+        }
+        addSubscribers(listenerSubscribers, listenerSubscribers.get(0).subscriptionKey);
+    }
+
+    /**
+     * Adds {@code subscribers}, all registered for {@code key}, to the indexes: the new subscribers of
+     * each event type are merged into its array with a single sort, then the event classes they
+     * change are republished once. Must be called with the registry lock held.
+     */
+    private void addSubscribers(List<Subscriber> subscribers, @Nullable Object key) {
+        Map<Class<?>, List<Subscriber>> subscribersByType = new LinkedHashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.getSubscribeMethod().getTopic() != null) {
+                topics.add(subscriber);
                 continue;
             }
-            subscribers.add(subscriber);
-            subscribers.sort((s1, s2) -> s2.getSubscribeMethod().getPriority() - s1.getSubscribeMethod().getPriority());
-            listenerSubscribers.add(subscriber);
+            subscribersByType.computeIfAbsent(subscriber.getSubscribeMethod().getEventType(), type -> new ArrayList<>())
+                    .add(subscriber);
+        }
+        for (Map.Entry<Class<?>, List<Subscriber>> entry : subscribersByType.entrySet()) {
+            Class<?> eventType = entry.getKey();
+            putSubscribersOfType(eventType, key, merge(subscribersOfType(eventType, key), entry.getValue()));
         }
-        if (listenerSubscribers.size() == 0) {
+        refreshEventClasses(subscribersByType.keySet(), key);
+    }
+
+    /** Returns the subscribers of a registered {@code listener}, none if it is not registered. */
+    synchronized List<Subscriber> subscribersOf(Object listener) {
+        List<Subscriber> listenerSubscribers = listenerSubscribers(listener);
+        return listenerSubscribers != null ? listenerSubscribers : Collections.<Subscriber>newArrayList();
+    }
+
+    /** Whether {@code subscriber}, or an equal one of its listener registered again, is registered. */
+    synchronized boolean isRegistered(Subscriber subscriber) {
+        Object listener = subscriber.getTarget();
+        List<Subscriber> listenerSubscribers = listener != null ? listenerSubscribers(listener) : null;
+        return listenerSubscribers != null && listenerSubscribers.contains(subscriber);
+    }
+
+    /**
+     * Returns the subscribers of {@code listener}, registered strongly or weakly, {@code null} if it
+     * is not registered. Must be called with the registry lock held.
+     */
+    private List<Subscriber> listenerSubscribers(Object listener) {
+        List<Subscriber> listenerSubscribers = subscribersInSameListener.get(listener);
+        if (listenerSubscribers == null && !subscribersInSameWeakListener.isEmpty()) {
+            listenerSubscribers = subscribersInSameWeakListener.get(new WeakListener(listener, null));
+        }
+        return listenerSubscribers;
+    }
+
+    /** Unregisters all subscribers on the given listener object, and forgets the listener. */
+    synchronized void unregister(Object listener) {
+        expungeStaleListeners();
+        List<Subscriber> listenerMethods = forget(listener);
+        if (listenerMethods == null) {
             return;
         }
-        subscribersInSameListener.put(listener, listenerSubscribers);
+        removeSubscribers(listenerMethods);
     }
 
     /**
-     * get the class of the listener
-     * @param listenerClazz listener class
-     * @return the method subscribe in the listener
+     * Unregisters all subscribers on each of {@code listeners} that is registered, as {@link
+     * #unregister(Object)} one by one would, but filtering the subscribers of each event type and
+     * republishing each event class they change once.
      */
-    private List<SubscribeMethod> findSubscriberMethods(Class listenerClazz) {
-        List<SubscribeMethod> subscribeMethods = classSubscribeMethods.get(listenerClazz);
-        if (subscribeMethods != null) {
-            return subscribeMethods;
+    synchronized void unregisterAll(Collection<?> listeners) {
+        expungeStaleListeners();
+        List<Subscriber> removed = new ArrayList<>();
+        for (Object listener : listeners) {
+            List<Subscriber> listenerMethods = forget(checkNotNull(listener));
+            if (listenerMethods != null) {
+                removed.addAll(listenerMethods);
+            }
         }
-        Map<MethodIdentifier, SubscribeMethod> identifiers = Collections.newHashMap();
-        List<Method> methods = ReflectionUtils.getMethodByAnnotation(listenerClazz, Subscribe.class);
-        if (CollectionUtil.isEmpty(methods)) {
-            return null;
+        removeSubscribers(removed);
+    }
+
+    /**
+     * Removes {@code listener}, registered strongly or weakly, and returns its subscribers, {@code
+     * null} if it is not registered. Must be called with the registry lock held.
+     */
+    private List<Subscriber> forget(Object listener) {
+        List<Subscriber> listenerMethods = subscribersInSameListener.remove(listener);
+        if (listenerMethods == null && !subscribersInSameWeakListener.isEmpty()) {
+            listenerMethods = subscribersInSameWeakListener.remove(new WeakListener(listener, null));
+        }
+        return listenerMethods;
+    }
+
+    /**
+     * Unregisters the subscribers of the listeners registered weakly that were collected, as {@link
+     * java.util.WeakHashMap} expunges its stale entries: on each registration, unregistration and
+     * post, so that no thread has to outlive the bus to clean up after it. Polling the queue while
+     * nothing was collected neither locks nor allocates.
+     */
+    private void expungeStaleListeners() {
+        for (Object stale; (stale = staleListeners.poll()) != null; ) {
+            purge((WeakListener) stale);
+        }
+    }
+
+    /** Unregisters the subscribers of a weakly registered listener that was collected. */
+    private synchronized void purge(WeakListener weakListener) {
+        List<Subscriber> listenerMethods = subscribersInSameWeakListener.remove(weakListener);
+        if (listenerMethods != null) {
+            removeSubscribers(listenerMethods);
         }
-        for (Method method : methods) {
-            if (method.isSynthetic()) {
+    }
+
+    /**
+     * Removes {@code subscribers} from the indexes, filtering the subscribers of each event type and
+     * key once, then republishes the event classes they change once per key. Must be called with
+     * the registry lock held.
+     */
+    private void removeSubscribers(List<Subscriber> subscribers) {
+        // by key, then by event type, the key being null for the subscribers of every key
+        Map<Object, Map<Class<?>, Set<Subscriber>>> removedByKey = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.getSubscribeMethod().getTopic() != null) {
+                topics.remove(subscriber);
                 continue;
             }
-            // check the count of parameters
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length != 1) {
-                throw new IllegalArgumentException("Target method[" + listenerClazz.getName() + "#" + method.getName()
-                        + "] can only be defined in 1 parameter, but found " + parameterTypes.length + " now.");
-            }
-            Subscribe subscriber = method.getAnnotation(Subscribe.class);
-            String subscriberName = "".equals(subscriber.name().trim()) ? listenerClazz.getName() + "#" + method.getName() : subscriber.name();
-            SubscribeMethod subscribeMethod = SubscribeMethod.Builder.aSubscribeMethod()
-                    .withMethod(method)
-                    .withEventType(parameterTypes[0])
-                    .withName(subscriberName)
-                    .withPriority(subscriber.priority())
-                    .build();
-            // the unique checkout of the method
-            MethodIdentifier ident = new MethodIdentifier(method);
-            if (!identifiers.containsKey(ident)) {
-                identifiers.put(ident, subscribeMethod);
-            }
-        }
-        subscribeMethods = new ArrayList<>(identifiers.values());
-        if (subscribeMethods.size() == 0) {
-            return null;
+            removedByKey.computeIfAbsent(subscriber.subscriptionKey, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(subscriber.getSubscribeMethod().getEventType(), type -> new HashSet<>())
+                    .add(subscriber);
+        }
+        for (Map.Entry<Object, Map<Class<?>, Set<Subscriber>>> keyEntry : removedByKey.entrySet()) {
+            Object key = keyEntry.getKey();
+            for (Map.Entry<Class<?>, Set<Subscriber>> typeEntry : keyEntry.getValue().entrySet()) {
+                Class<?> eventType = typeEntry.getKey();
+                Set<Subscriber> removed = typeEntry.getValue();
+                Subscriber[] currentSubscribers = subscribersOfType(eventType, key);
+                List<Subscriber> kept = new ArrayList<>(currentSubscribers.length);
+                for (Subscriber subscriber : currentSubscribers) {
+                    if (!removed.contains(subscriber)) {
+                        kept.add(subscriber);
+                    }
+                }
+                if (currentSubscribers.length - kept.size() != removed.size()) {
+                    // barring something very strange, all subscribers on a listener for an event type
+                    // are registered together... after all, the definition of subscribers on a
+                    // particular class is totally static
+                    throw new IllegalArgumentException("missing event subscriber for an annotated method. Is "
+                            + removed.iterator().next().getTarget() + " registered?");
+                }
+                putSubscribersOfType(eventType, key, kept.isEmpty() ? NO_SUBSCRIBERS : kept.toArray(new Subscriber[0]));
+            }
+            refreshEventClasses(keyEntry.getValue().keySet(), key);
         }
-        classSubscribeMethods.put(listenerClazz, subscribeMethods);
-        return subscribeMethods;
     }
 
-    /** Unregisters all subscribers on the given listener object. */
-    void unregister(Object listener) {
-        List<Subscriber> listenerMethods = subscribersInSameListener.get(listener);
-        if (listenerMethods == null) {
+    /** Returns the subscribers of {@code eventType} registered for {@code key}, or for all keys if it is {@code null}. */
+    private Subscriber[] subscribersOfType(Class<?> eventType, @Nullable Object key) {
+        if (key == null) {
+            return subscribersInSameEventType.getOrDefault(eventType, NO_SUBSCRIBERS);
+        }
+        Map<Object, Subscriber[]> byKey = keyedSubscribersInSameEventType.get(eventType);
+        Subscriber[] subscribers = byKey != null ? byKey.get(key) : null;
+        return subscribers != null ? subscribers : NO_SUBSCRIBERS;
+    }
+
+    private void putSubscribersOfType(Class<?> eventType, @Nullable Object key, Subscriber[] subscribers) {
+        if (key == null) {
+            subscribersInSameEventType.put(eventType, subscribers);
             return;
         }
-        for (Subscriber subscriber : listenerMethods) {
-            List<Subscriber> currentSubscribers = subscribersInSameEventType.get(subscriber.getSubscribeMethod().getEventType());
-            if (currentSubscribers == null || !currentSubscribers.remove(subscriber)) {
-                // if remove returns true, all we really know is that at least one subscriber was
-                // removed... however, barring something very strange we can assume that if at least one
-                // subscriber was removed, all subscribers on listener for that event type were... after
-                // all, the definition of subscribers on a particular class is totally static
-                throw new IllegalArgumentException(
-                        "missing event subscriber for an annotated method. Is " + listener + " registered?");
+        Map<Object, Subscriber[]> byKey = keyedSubscribersInSameEventType.computeIfAbsent(eventType, type -> new HashMap<>());
+        if (subscribers.length > 0) {
+            byKey.put(key, subscribers);
+            return;
+        }
+        byKey.remove(key);
+        if (byKey.isEmpty()) {
+            keyedSubscribersInSameEventType.remove(eventType);
+        }
+    }
+
+    /**
+     * Gets an immutable snapshot of all subscribers to the given event at the time this method is
+     * called, highest priority first. The returned array must not be modified.
+     */
+    Subscriber[] getSubscribers(Object event) {
+        expungeStaleListeners();
+        Class<?> eventClass = event.getClass();
+        Subscriber[] eventSubscribers = subscribersInSameEventClass.get(eventClass);
+        if (eventSubscribers == null) {
+            eventSubscribers = resolveEventClass(eventClass);
+        }
+        Map<Object, KeyedSubscribers> byKey = keyedSubscribersInSameEventClass.get(eventClass);
+        if (byKey != null) {
+            Object key = bus.partitionKey(event);
+            KeyedSubscribers keyedSubscribers = key != null ? byKey.get(key) : null;
+            if (keyedSubscribers != null) {
+                return keyedSubscribers.mergedWith(eventSubscribers);
             }
         }
+        return eventSubscribers;
     }
 
     /**
-     * Gets an iterator representing an immutable snapshot of all subscribers to the given event at
-     * the time this method is called.
+     * Gets the subscribers of {@code event} whose topic pattern matches {@code topic}, highest
+     * priority first. The returned array must not be modified.
      */
-    Iterator<Subscriber> getSubscribers(Object event) {
+    Subscriber[] getSubscribers(String topic, Object event) {
+        expungeStaleListeners();
+        return topics.getSubscribers(topic, event);
+    }
 
-        List<Subscriber> eventSubscribers = subscribersInSameEventType.get(event.getClass());
+    /** Computes and caches the subscribers of an event class that has not been posted before. */
+    private synchronized Subscriber[] resolveEventClass(Class<?> eventClass) {
+        Subscriber[] eventSubscribers = subscribersInSameEventClass.get(eventClass);
         if (eventSubscribers == null) {
-            return null;
+            // the keys first, a post finding the class must find its keys as well
+            Set<Object> keys = new HashSet<>();
+            for (Class<?> type : flattenHierarchy(eventClass)) {
+                Map<Object, Subscriber[]> byKey = keyedSubscribersInSameEventType.get(type);
+                if (byKey != null) {
+                    keys.addAll(byKey.keySet());
+                }
+            }
+            for (Object key : keys) {
+                refreshEventClass(eventClass, key);
+            }
+            eventSubscribers = collectSubscribers(eventClass, null);
+            subscribersInSameEventClass.put(eventClass, eventSubscribers);
+        }
+        return eventSubscribers;
+    }
+
+    /**
+     * Recomputes the cached event classes that are assignable to one of {@code changedTypes}, after
+     * their subscribers of {@code key} changed, or their subscribers of every key if it is {@code
+     * null}. Must be called with the registry lock held.
+     */
+    private void refreshEventClasses(Set<Class<?>> changedTypes, @Nullable Object key) {
+        if (changedTypes.isEmpty()) {
+            return;
+        }
+        for (Class<?> eventClass : subscribersInSameEventClass.keySet()) {
+            for (Class<?> changedType : changedTypes) {
+                if (changedType.isAssignableFrom(eventClass)) {
+                    if (key != null) {
+                        refreshEventClass(eventClass, key);
+                        break;
+                    }
+                    // the keyed subscribers merge with the new array on the next post of their key
+                    subscribersInSameEventClass.put(eventClass, collectSubscribers(eventClass, null));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the subscribers of {@code eventClass} registered for {@code key}, dropping the
+     * entry of the key once nobody subscribes to it. Must be called with the registry lock held.
+     */
+    private void refreshEventClass(Class<?> eventClass, Object key) {
+        Subscriber[] keyedSubscribers = collectSubscribers(eventClass, key);
+        ConcurrentMap<Object, KeyedSubscribers> byKey = keyedSubscribersInSameEventClass.get(eventClass);
+        if (keyedSubscribers.length > 0) {
+            if (byKey == null) {
+                byKey = Collections.newConcurrentMap();
+                keyedSubscribersInSameEventClass.put(eventClass, byKey);
+            }
+            byKey.put(key, new KeyedSubscribers(keyedSubscribers));
+        } else if (byKey != null) {
+            byKey.remove(key);
+            if (byKey.isEmpty()) {
+                keyedSubscribersInSameEventClass.remove(eventClass);
+            }
+        }
+    }
+
+    /**
+     * Merges the subscribers of {@code eventClass} and all of its supertypes registered for {@code
+     * key}, or for every key if it is {@code null}, highest priority first. Subscribers of the same
+     * priority are ordered from the most specific type to the most general one, then by
+     * registration order.
+     */
+    private Subscriber[] collectSubscribers(Class<?> eventClass, @Nullable Object key) {
+        List<Subscriber[]> candidates = new ArrayList<>();
+        for (Class<?> type : flattenHierarchy(eventClass)) {
+            candidates.add(subscribersOfType(type, key));
+        }
+        Subscriber[] single = null;
+        List<Subscriber> merged = null;
+        for (Subscriber[] typeSubscribers : candidates) {
+            if (typeSubscribers.length == 0) {
+                continue;
+            }
+            if (single == null && merged == null) {
+                single = typeSubscribers;
+                continue;
+            }
+            if (merged == null) {
+                merged = new ArrayList<>(Arrays.asList(single));
+            }
+            merged.addAll(Arrays.asList(typeSubscribers));
         }
-        return eventSubscribers.iterator();
+        if (merged == null) {
+            return single != null ? single : NO_SUBSCRIBERS;
+        }
+        // List.sort is stable, which keeps the type and registration order within a priority
+        merged.sort((s1, s2) -> Integer.compare(s2.getSubscribeMethod().getPriority(), s1.getSubscribeMethod().getPriority()));
+        return merged.toArray(new Subscriber[0]);
     }
 
-    private static final class MethodIdentifier {
+    /**
+     * Returns {@code eventClass}, its superclasses and every interface they implement, from the
+     * most specific to the most general.
+     */
+    private static Set<Class<?>> flattenHierarchy(Class<?> eventClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> clazz = eventClass; clazz != null; clazz = clazz.getSuperclass()) {
+            types.add(clazz);
+        }
+        for (Class<?> clazz = eventClass; clazz != null; clazz = clazz.getSuperclass()) {
+            addInterfaces(clazz, types);
+        }
+        return types;
+    }
 
-        private final String name;
-        private final List<Class<?>> parameterTypes;
+    private static void addInterfaces(Class<?> clazz, Set<Class<?>> types) {
+        for (Class<?> anInterface : clazz.getInterfaces()) {
+            if (types.add(anInterface)) {
+                addInterfaces(anInterface, types);
+            }
+        }
+    }
 
-        MethodIdentifier(Method method) {
-            this.name = method.getName();
-            this.parameterTypes = Arrays.asList(method.getParameterTypes());
+    /**
+     * Returns a copy of {@code subscribers} with {@code subscriber} inserted after every subscriber
+     * of higher or equal priority, so subscribers of the same priority keep registration order.
+     */
+    private static Subscriber[] insert(Subscriber[] subscribers, Subscriber subscriber) {
+        int priority = subscriber.getSubscribeMethod().getPriority();
+        int position = subscribers.length;
+        while (position > 0 && subscribers[position - 1].getSubscribeMethod().getPriority() < priority) {
+            position--;
+        }
+        Subscriber[] result = new Subscriber[subscribers.length + 1];
+        System.arraycopy(subscribers, 0, result, 0, position);
+        result[position] = subscriber;
+        System.arraycopy(subscribers, position, result, position + 1, subscribers.length - position);
+        return result;
+    }
+
+    /**
+     * Returns a copy of {@code subscribers} with {@code added} merged in, each after every subscriber
+     * of higher or equal priority, so subscribers of the same priority keep registration order. A
+     * single subscriber is inserted in place, several are sorted in at once.
+     */
+    private static Subscriber[] merge(Subscriber[] subscribers, List<Subscriber> added) {
+        if (added.size() == 1) {
+            return insert(subscribers, added.get(0));
+        }
+        Subscriber[] result = Arrays.copyOf(subscribers, subscribers.length + added.size());
+        for (int i = 0; i < added.size(); i++) {
+            result[subscribers.length + i] = added.get(i);
+        }
+        // Arrays.sort is stable for objects, subscribers of the same priority keep registration order
+        Arrays.sort(result, (s1, s2) -> Integer.compare(s2.getSubscribeMethod().getPriority(), s1.getSubscribeMethod().getPriority()));
+        return result;
+    }
+
+    /**
+     * The subscribers of an event class registered for one key, and their merge with the subscribers
+     * of every key, computed on the first post of the key that finds it missing or stale. The merge
+     * is stamped with the array of every key it was computed from: registering for every key puts a
+     * new array in {@link #subscribersInSameEventClass}, so the stamp no longer matches and the next
+     * post merges again. Only the keys actually posted hold a merged copy.
+     */
+    private static final class KeyedSubscribers {
+        /** The subscribers of the key alone, highest priority first. */
+        private final Subscriber[] keyed;
+
+        /** The latest merge, racy on purpose: two posts merging at once compute equal arrays. */
+        private volatile Merge merge;
+
+        KeyedSubscribers(Subscriber[] keyed) {
+            this.keyed = keyed;
+        }
+
+        /**
+         * Returns {@code unkeyed} and the subscribers of the key, highest priority first, those of
+         * every key first within a priority.
+         */
+        Subscriber[] mergedWith(Subscriber[] unkeyed) {
+            Merge current = merge;
+            if (current == null || current.unkeyed != unkeyed) {
+                current = new Merge(unkeyed, mergeByPriority(unkeyed, keyed));
+                merge = current;
+            }
+            return current.subscribers;
+        }
+
+        private static final class Merge {
+            private final Subscriber[] unkeyed;
+            private final Subscriber[] subscribers;
+
+            Merge(Subscriber[] unkeyed, Subscriber[] subscribers) {
+                this.unkeyed = unkeyed;
+                this.subscribers = subscribers;
+            }
+        }
+    }
+
+    /**
+     * Merges two arrays sorted by descending priority into a new one, the subscribers of {@code
+     * first} before those of {@code second} within a priority. Returns the other array as is if
+     * one is empty.
+     */
+    static Subscriber[] mergeByPriority(Subscriber[] first, Subscriber[] second) {
+        if (first.length == 0) {
+            return second;
+        }
+        if (second.length == 0) {
+            return first;
+        }
+        Subscriber[] result = new Subscriber[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < result.length; k++) {
+            if (j == second.length || (i < first.length && first[i].getSubscribeMethod().getPriority()
+                    >= second[j].getSubscribeMethod().getPriority())) {
+                result[k] = first[i++];
+            } else {
+                result[k] = second[j++];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A weak reference to a listener registered weakly, shared by its subscribers. Two references
+     * are equal while they refer to the same listener, so that a reference made for a lookup finds
+     * the registered one; once cleared, a reference is only equal to itself.
+     */
+    private static final class WeakListener extends WeakReference<Object> {
+        private final int hash;
+
+        /** Enqueued to {@code queue} once {@code listener} is collected, a lookup if it is {@code null}. */
+        WeakListener(Object listener, @Nullable ReferenceQueue<Object> queue) {
+            super(listener, queue);
+            this.hash = System.identityHashCode(listener);
         }
 
         @Override
         public int hashCode() {
-            return Arrays.hashCode(new Object[]{name, parameterTypes});
+            return hash;
         }
 
         @Override
         public boolean equals(@Nullable Object o) {
-            if (o instanceof MethodIdentifier) {
-                MethodIdentifier ident = (MethodIdentifier) o;
-                return name.equals(ident.name) && parameterTypes.equals(ident.parameterTypes);
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof WeakListener)) {
+                return false;
             }
-            return false;
+            Object listener = get();
+            return listener != null && listener == ((WeakListener) o).get();
+        }
+
+        @Override
+        public String toString() {
+            return "WeakListener[" + get() + "]";
         }
     }
 }
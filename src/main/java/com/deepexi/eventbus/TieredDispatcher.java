@@ -0,0 +1,165 @@
+package com.deepexi.eventbus;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.deepexi.eventbus.base.Preconditions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p> a {@link Dispatcher} that calls the subscribers of an event of equal priority concurrently,
+ * one priority tier after the other. </p>
+ *
+ * <p>Events are dispatched in the order they were posted by a dedicated dispatch thread. For each
+ * event, the subscribers of the highest priority are called at once, one of them on the dispatch
+ * thread and the others on a fork-join pool of {@code parallelism} threads; once all of them
+ * returned, the subscribers of the next priority are called the same way, and so on. An event is
+ * therefore handled in the time of the slowest subscriber of each tier rather than in the sum of
+ * all of them, and no subscriber sees an event before the subscribers of a higher priority are
+ * done with it.
+ *
+ * <p>The dispatch thread queues up to 65535 events, beyond that or once closed it throws a {@link
+ * java.util.concurrent.RejectedExecutionException} to the poster.
+ *
+ * <p>Subscribers are meant to be called with a {@linkplain
+ * com.deepexi.eventbus.base.MoreExecutors#directExecutor() direct} executor, right on the threads
+ * of the tier; those of the same tier must be safe to run concurrently.
+ */
+final class TieredDispatcher extends Dispatcher {
+    private static final Logger LOGGER = Logger.getLogger(TieredDispatcher.class.getName());
+
+    private final ForkJoinPool pool;
+
+    /** Runs the tiers of each event in turn, and shuts the pool down once it is shut down itself. */
+    private final ThreadPoolExecutor dispatchThread;
+
+    TieredDispatcher(String identifier, int parallelism) {
+        Preconditions.checkNotNull(identifier);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+        }
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(identifier + "-tier-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.dispatchThread = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(65535),
+                ThreadFactoryBuilder.create().setNamePrefix(identifier + "-tier-dispatcher").build()) {
+            @Override
+            protected void terminated() {
+                pool.shutdown();
+            }
+        };
+    }
+
+    /** Returns the number of events and batches waiting for the dispatch thread. */
+    @Override
+    int backlog() {
+        return dispatchThread.getQueue().size();
+    }
+
+    @Override
+    void dispatch(Object event, Subscriber[] subscribers) {
+        Preconditions.checkNotNull(event);
+        Preconditions.checkNotNull(subscribers);
+        if (subscribers.length > 0) {
+            dispatchThread.execute(() -> runTiers(subscribers, i -> dispatchNow(event, subscribers[i], null)));
+        }
+    }
+
+    /** Runs the request through the tiers like an event, its subscribers reply from the threads of the tier. */
+    @Override
+    void dispatchRequest(Object event, Subscriber[] subscribers, Request request) {
+        Preconditions.checkNotNull(event);
+        Preconditions.checkNotNull(request);
+        dispatchThread.execute(() -> runTiers(subscribers, i -> dispatchNow(event, subscribers[i], request)));
+    }
+
+    /**
+     * Groups the batch by subscriber, as {@link Dispatcher#dispatchGrouped(Object[], Subscriber[][])},
+     * and hands the groups to the tiers of their subscribers at once.
+     */
+    @Override
+    void dispatchAll(Object[] events, Subscriber[][] subscribers) {
+        List<Map.Entry<Subscriber, List<Object>>> groups = groupBySubscriber(events, subscribers);
+        if (groups.isEmpty()) {
+            return;
+        }
+        Subscriber[] groupSubscribers = new Subscriber[groups.size()];
+        for (int i = 0; i < groupSubscribers.length; i++) {
+            groupSubscribers[i] = groups.get(i).getKey();
+        }
+        dispatchThread.execute(() -> runTiers(groupSubscribers, i -> {
+            try {
+                groupSubscribers[i].dispatchEvents(groups.get(i).getValue());
+            } catch (Throwable e) {
+                LOGGER.log(Level.SEVERE, "Failed to dispatch " + groups.get(i).getValue() + " to "
+                        + groupSubscribers[i].getSubscribeMethod().getName(), e);
+            }
+        }));
+    }
+
+    /** Shuts down the dispatch thread once the events already posted are dispatched, then the pool. */
+    @Override
+    void close() {
+        dispatchThread.shutdown();
+    }
+
+    /**
+     * Calls {@code call} with the index of each of {@code subscribers}, sorted by descending
+     * priority, concurrently within each run of equal priority and waiting for a run to complete
+     * before starting the next one.
+     */
+    private void runTiers(Subscriber[] subscribers, IntConsumer call) {
+        int start = 0;
+        while (start < subscribers.length) {
+            int priority = subscribers[start].getSubscribeMethod().getPriority();
+            int end = start + 1;
+            while (end < subscribers.length && subscribers[end].getSubscribeMethod().getPriority() == priority) {
+                end++;
+            }
+            runTier(start, end, call);
+            start = end;
+        }
+    }
+
+    private void runTier(int start, int end, IntConsumer call) {
+        if (end - start == 1) {
+            call.accept(start);
+            return;
+        }
+        ForkJoinTask<?>[] forked = new ForkJoinTask<?>[end - start - 1];
+        for (int i = start + 1; i < end; i++) {
+            int index = i;
+            forked[i - start - 1] = pool.submit(() -> call.accept(index));
+        }
+        // the dispatch thread takes its share of the tier rather than idling until it is done
+        call.accept(start);
+        for (ForkJoinTask<?> task : forked) {
+            task.quietlyJoin();
+        }
+    }
+
+    private static void dispatchNow(Object event, Subscriber subscriber, Request request) {
+        try {
+            if (request != null) {
+                subscriber.dispatchRequest(event, request);
+            } else {
+                subscriber.dispatchEvent(event);
+            }
+        } catch (Throwable e) {
+            // the tier must complete whatever a subscriber or a rejecting executor throws
+            LOGGER.log(Level.SEVERE, "Failed to dispatch " + event + " to " + subscriber.getSubscribeMethod().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.deepexi.eventbus;
+
+import com.deepexi.eventbus.base.Collections;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> the subscribers of a bus that subscribe to a topic pattern, see {@link
+ * com.deepexi.eventbus.annotation.Subscribe#topic()}, alongside the {@link SubscriberRegistry} of
+ * those subscribing by event type. </p>
+ *
+ * <p>Topics are dot-separated segments such as {@code orders.eu.created}. In a pattern, {@code *}
+ * matches exactly one segment and a final {@code #} matches any number of segments, none included.
+ * Patterns are kept in a trie of segments, so matching a topic visits at most the branches that
+ * match its segments, whatever the number of patterns. The subscribers resolved for a topic and an
+ * event class are cached until a subscriber of a topic is registered or unregistered, those
+ * registered for the events of one key indexed by their key, see {@link EventBus#register(Object,
+ * Object)}.
+ */
+final class TopicRegistry {
+    /** The segment matching exactly one segment. */
+    static final String ONE_SEGMENT = "*";
+
+    /** The final segment matching any number of segments. */
+    static final String ANY_SEGMENTS = "#";
+
+    /** The number of topics cached, the cache starts over once it is reached. */
+    private static final int MAX_CACHED_TOPICS = 65536;
+
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    /** The root of the trie, guarded by this registry. */
+    private final Node root = new Node();
+
+    /**
+     * The subscribers of the topics posted to, by topic then by event class. Read without locking,
+     * filled and cleared under the lock of this registry.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<Class<?>, Resolved>> resolvedTopics =
+            Collections.newConcurrentMap();
+
+    /** The event bus the subscribers belong to, which reads the key of an event. */
+    private final EventBus bus;
+
+    TopicRegistry(EventBus bus) {
+        this.bus = checkNotNull(bus);
+    }
+
+    /** Adds {@code subscriber} under the topic pattern of its method. */
+    synchronized void add(Subscriber subscriber) {
+        Node node = root;
+        for (String segment : segments(subscriber.getSubscribeMethod().getTopic(), true)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.subscribers.add(subscriber);
+        resolvedTopics.clear();
+    }
+
+    /** Removes {@code subscriber} from the topic pattern of its method, and the branches it leaves empty. */
+    synchronized void remove(Subscriber subscriber) {
+        remove(root, segments(subscriber.getSubscribeMethod().getTopic(), true), 0, subscriber);
+        resolvedTopics.clear();
+    }
+
+    private static boolean remove(Node node, String[] segments, int index, Subscriber subscriber) {
+        if (index == segments.length) {
+            node.subscribers.remove(subscriber);
+        } else {
+            Node child = node.children.get(segments[index]);
+            if (child != null && remove(child, segments, index + 1, subscriber)) {
+                node.children.remove(segments[index]);
+            }
+        }
+        return node.subscribers.isEmpty() && node.children.isEmpty();
+    }
+
+    /**
+     * Gets the subscribers of {@code event} whose pattern matches {@code topic}, highest priority
+     * first. The returned array must not be modified.
+     */
+    Subscriber[] getSubscribers(String topic, Object event) {
+        Map<Class<?>, Resolved> byClass = resolvedTopics.get(topic);
+        Resolved resolved = byClass != null ? byClass.get(event.getClass()) : null;
+        if (resolved == null) {
+            resolved = resolve(topic, event.getClass());
+        }
+        return resolved.keyed == null ? resolved.subscribers : resolved.subscribersOfKey(bus.partitionKey(event));
+    }
+
+    private synchronized Resolved resolve(String topic, Class<?> eventClass) {
+        String[] segments = segments(topic, false);
+        List<Subscriber> matched = new ArrayList<>();
+        match(root, segments, 0, eventClass, matched);
+        List<Subscriber> unkeyed = new ArrayList<>(matched.size());
+        Map<Object, List<Subscriber>> keyed = null;
+        for (Subscriber subscriber : matched) {
+            if (subscriber.subscriptionKey == null) {
+                unkeyed.add(subscriber);
+                continue;
+            }
+            if (keyed == null) {
+                keyed = new LinkedHashMap<>();
+            }
+            keyed.computeIfAbsent(subscriber.subscriptionKey, key -> new ArrayList<>()).add(subscriber);
+        }
+        Map<Object, Subscriber[]> keyedSubscribers = null;
+        if (keyed != null) {
+            keyedSubscribers = new HashMap<>();
+            for (Map.Entry<Object, List<Subscriber>> entry : keyed.entrySet()) {
+                keyedSubscribers.put(entry.getKey(), sortByPriority(entry.getValue()));
+            }
+        }
+        Resolved resolved = new Resolved(sortByPriority(unkeyed), keyedSubscribers);
+        if (resolvedTopics.size() >= MAX_CACHED_TOPICS) {
+            resolvedTopics.clear();
+        }
+        resolvedTopics.computeIfAbsent(topic, t -> Collections.newConcurrentMap()).put(eventClass, resolved);
+        return resolved;
+    }
+
+    private static Subscriber[] sortByPriority(List<Subscriber> subscribers) {
+        if (subscribers.isEmpty()) {
+            return NO_SUBSCRIBERS;
+        }
+        // List.sort is stable, subscribers of the same priority keep their registration order within a pattern
+        subscribers.sort((s1, s2) -> Integer.compare(s2.getSubscribeMethod().getPriority(), s1.getSubscribeMethod().getPriority()));
+        return subscribers.toArray(new Subscriber[0]);
+    }
+
+    /** Collects the subscribers of {@code eventClass} under the patterns of {@code node} matching the segments from {@code index}. */
+    private static void match(Node node, String[] segments, int index, Class<?> eventClass, List<Subscriber> matched) {
+        Node anySegments = node.children.get(ANY_SEGMENTS);
+        if (anySegments != null) {
+            collect(anySegments, eventClass, matched);
+        }
+        if (index == segments.length) {
+            collect(node, eventClass, matched);
+            return;
+        }
+        Node literal = node.children.get(segments[index]);
+        if (literal != null) {
+            match(literal, segments, index + 1, eventClass, matched);
+        }
+        Node oneSegment = node.children.get(ONE_SEGMENT);
+        if (oneSegment != null) {
+            match(oneSegment, segments, index + 1, eventClass, matched);
+        }
+    }
+
+    private static void collect(Node node, Class<?> eventClass, List<Subscriber> matched) {
+        for (Subscriber subscriber : node.subscribers) {
+            Class<?> eventType = subscriber.getSubscribeMethod().getEventType();
+            if (eventType.isAssignableFrom(eventClass)) {
+                matched.add(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Splits a topic, or a pattern if {@code pattern}, into its segments.
+     *
+     * @throws IllegalArgumentException if a segment is empty, if a topic has a wildcard segment, or
+     *     if a pattern has a wildcard within a segment or {@code #} before its last segment.
+     */
+    static String[] segments(String topic, boolean pattern) {
+        if (topic == null || topic.isEmpty()) {
+            throw new IllegalArgumentException("A topic cannot be empty.");
+        }
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int end = topic.indexOf('.'); ; end = topic.indexOf('.', start)) {
+            String segment = topic.substring(start, end < 0 ? topic.length() : end);
+            if (segment.isEmpty()) {
+                throw new IllegalArgumentException("Topic[" + topic + "] has an empty segment.");
+            }
+            boolean wildcard = segment.equals(ONE_SEGMENT) || segment.equals(ANY_SEGMENTS);
+            if (wildcard && !pattern) {
+                throw new IllegalArgumentException("Topic[" + topic + "] is posted to, it cannot have wildcards.");
+            }
+            if (!wildcard && (segment.contains(ONE_SEGMENT) || segment.contains(ANY_SEGMENTS))) {
+                throw new IllegalArgumentException("Topic[" + topic + "] has a wildcard within the segment " + segment + ".");
+            }
+            if (segment.equals(ANY_SEGMENTS) && end >= 0) {
+                throw new IllegalArgumentException("Topic[" + topic + "] can only have # as its last segment.");
+            }
+            segments.add(segment);
+            if (end < 0) {
+                return segments.toArray(new String[0]);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * The subscribers of a topic and an event class. Those registered for one key are kept apart,
+     * and merged with those of every key on the first post of the key, so a post is a lookup by key
+     * whatever the number of keys.
+     */
+    private static final class Resolved {
+        /** The subscribers of every key, highest priority first. */
+        private final Subscriber[] subscribers;
+
+        /** The subscribers of each key alone, highest priority first, {@code null} if there are none. */
+        private final Map<Object, Subscriber[]> keyed;
+
+        /** The subscribers of each key posted so far merged with {@link #subscribers}. */
+        private final ConcurrentMap<Object, Subscriber[]> merged;
+
+        Resolved(Subscriber[] subscribers, Map<Object, Subscriber[]> keyed) {
+            this.subscribers = subscribers;
+            this.keyed = keyed;
+            this.merged = keyed != null ? Collections.newConcurrentMap() : null;
+        }
+
+        Subscriber[] subscribersOfKey(Object key) {
+            if (key == null) {
+                return subscribers;
+            }
+            Subscriber[] keySubscribers = merged.get(key);
+            if (keySubscribers == null) {
+                Subscriber[] ofKey = keyed.get(key);
+                if (ofKey == null) {
+                    return subscribers;
+                }
+                keySubscribers = SubscriberRegistry.mergeByPriority(subscribers, ofKey);
+                merged.put(key, keySubscribers);
+            }
+            return keySubscribers;
+        }
+    }
+
+    /** A segment of the trie: the subscribers of the pattern ending here and the segments following it. */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+    }
+}
@@ -0,0 +1,20 @@
+package com.deepexi.eventbus.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> marks the field, or the method without parameters, of an event class that holds the key of
+ * the event, e.g. the account an update belongs to. Events with equal keys are handled in the order
+ * they were posted by a bus built with
+ * {@link com.deepexi.eventbus.EventBus.Builder#withPartitionedExecutor(int)}. </p>
+ *
+ * <p>At most one member per class hierarchy should be annotated, members of subclasses win over those
+ * of their superclasses. See {@link com.deepexi.eventbus.util.EventKeys}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface EventKey {
+}
@@ -0,0 +1,39 @@
+package com.deepexi.eventbus.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> calls a subscriber method again with an event it threw on, up to {@link #maxAttempts()} calls
+ * in all, waiting {@link #backoffMillis()} before the first retry and {@link #multiplier()} times
+ * longer before each following one, at most {@link #maxBackoffMillis()}. </p>
+ *
+ * <p>Retries are scheduled on a timer and handed to the executor of the bus once due, so the
+ * dispatch thread moves on to other events meanwhile. A synchronous bus has no thread of its own,
+ * its retries run on {@link java.util.concurrent.ForkJoinPool#commonPool()} rather than on the
+ * posting thread. A retried event may thus overtake, or be overtaken by, events posted after it.
+ * The exception handler of the bus only hears of the last failure, and once a bus
+ * built with {@link com.deepexi.eventbus.EventBus.Builder#withDeadLetters(int)} gives up on the
+ * event, it keeps it as a {@link com.deepexi.eventbus.DeadLetter} that can be replayed. Requests
+ * are not retried, a subscriber throwing on one replies nothing, and retrying subscribers cannot be
+ * registered on a journaled bus.
+ *
+ * <p>This does not mark the method, and so should be used in combination with {@link Subscribe}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Retry {
+    /** the number of calls with an event before giving up on it, the first one included **/
+    int maxAttempts() default 3;
+
+    /** the time waited before the first retry **/
+    long backoffMillis() default 100L;
+
+    /** the factor the time waited grows by from one retry to the next, at least 1 **/
+    double multiplier() default 2.0;
+
+    /** the longest time waited before a retry **/
+    long maxBackoffMillis() default 30_000L;
+}
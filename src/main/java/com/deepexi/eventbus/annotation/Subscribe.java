@@ -31,15 +31,46 @@ import java.lang.annotation.Target;
  * <p>Unless also annotated with @{@link AllowConcurrentEvents}, event subscriber methods will be
  * invoked serially by each event bus that they are registered with.
  *
+ * <p>With a positive {@link #batchSize()} the method receives events in batches: its parameter is
+ * declared as {@code List<E>} (or {@code Collection<E>}, {@code Iterable<E>}) and it subscribes to
+ * events of type {@code E}. Events are coalesced until {@code batchSize} of them are pending or the
+ * oldest one has waited {@link #batchWaitMillis()}, whichever comes first.
+ *
+ * <p>With {@link #conflate()} the method only receives the latest of the events it has not been called
+ * with yet: a pending event is replaced by a newer event of the same class with the same key, read from
+ * the member annotated with {@link EventKey} (or computed by the function given to
+ * {@link com.deepexi.eventbus.EventBus.Builder#withPartitionKey}) or, for events without a key, by a newer
+ * event of the same class. The events waiting for the subscriber are then bounded by the number of
+ * distinct classes and keys rather than by the rate they are posted at. Events only wait on an asynchronous bus, a
+ * synchronous bus calls the method with each one.
+ *
+ * <p>With a {@link #topic()} the method only receives the events posted with {@link
+ * com.deepexi.eventbus.EventBus#post(String, Object)} to a topic its pattern matches, and no longer those
+ * posted with {@link com.deepexi.eventbus.EventBus#post(Object)}. Topics are dot-separated segments such as
+ * {@code orders.eu.created}; in a pattern {@code *} matches one segment and a final {@code #} any number of
+ * them, so {@code orders.*.created} and {@code orders.#} both match {@code orders.eu.created}.
+ *
  * @author Cliff Biffle
  * @since 10.0
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface Subscribe {
-    /** the priority in the subscriber method, only used into sync EventBus post **/
+    /** the priority in the subscriber method, orders the subscribers of an event, and the queued calls of a bus with priority scheduling **/
     int priority() default Priority.M_LEVEL;
 
     /** the description name for the subscriber method **/
     String name() default "";
+
+    /** the maximum number of events passed in one call, 0 to receive events one by one **/
+    int batchSize() default 0;
+
+    /** the maximum time an event waits for its batch to fill up, only used with a positive batchSize **/
+    long batchWaitMillis() default 100L;
+
+    /** whether a pending event is replaced by a newer one with the same key, cannot be combined with batchSize **/
+    boolean conflate() default false;
+
+    /** the topic pattern the method subscribes to, empty to subscribe to the events posted without a topic **/
+    String topic() default "";
 }
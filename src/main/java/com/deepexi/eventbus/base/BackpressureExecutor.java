@@ -0,0 +1,275 @@
+package com.deepexi.eventbus.base;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> an executor with a bounded task queue that applies a {@link BackpressurePolicy} when the
+ * queue is full, and counts what the policy did. </p>
+ *
+ * <p>Room in the queue is tracked by a semaphore with one permit per queued task, a task gives its
+ * permit back when it starts running. {@link #tryReserve(int)} takes the permits of several tasks
+ * at once, which lets the bus accept or refuse an event as a whole: the next {@code execute} calls
+ * on the reserving thread use the reserved permits instead of going through the policy. The
+ * reservations are per executor, so a thread reserving on one executor does not spend the permits
+ * of another.
+ *
+ * <p>A worker thread never waits for room in its own queue, since only the workers make room: a
+ * task submitted by a worker while the queue is full runs right away on that worker under {@code
+ * BLOCK}. {@code DROP_OLDEST} takes over the room of the task it evicts, and drops the new task
+ * when there is nothing queued to evict.
+ *
+ * <p>Dropped tasks that implement {@link Discardable} are told so.
+ */
+public final class BackpressureExecutor implements Executor {
+    /** the {@code timeout} of {@link BackpressurePolicy#BLOCK} waiting for room as long as it takes **/
+    public static final long NO_TIMEOUT = -1L;
+
+    /** permits reserved by the current thread and not yet used by {@link #execute(Runnable)} **/
+    private final ThreadLocal<int[]> reserved = ThreadLocal.withInitial(() -> new int[1]);
+
+    /** set on the worker threads of this executor **/
+    private final ThreadLocal<Boolean> worker = new ThreadLocal<>();
+
+    private final String identifier;
+    private final int capacity;
+    private final BackpressurePolicy policy;
+    private final long timeoutNanos;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param identifier prefix of the worker thread names
+     * @param threads number of worker threads
+     * @param capacity maximum number of queued tasks
+     * @param policy what to do with a task when the queue is full
+     * @param timeout how long {@link BackpressurePolicy#BLOCK} waits for room, ignored by other policies;
+     *                {@link #NO_TIMEOUT} to wait until there is room
+     */
+    public BackpressureExecutor(String identifier, int threads, int capacity, BackpressurePolicy policy,
+                                long timeout, TimeUnit unit) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("threads and capacity must be positive, but were "
+                    + threads + " and " + capacity);
+        }
+        if (timeout < 0L && timeout != NO_TIMEOUT) {
+            throw new IllegalArgumentException("timeout must not be negative, but was " + timeout);
+        }
+        this.identifier = checkNotNull(identifier);
+        this.capacity = capacity;
+        this.policy = checkNotNull(policy);
+        this.timeoutNanos = timeout == NO_TIMEOUT ? NO_TIMEOUT : unit.toNanos(timeout);
+        this.permits = new Semaphore(capacity);
+        ThreadFactory threadFactory = ThreadFactoryBuilder.create().setNamePrefix(identifier).build();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> threadFactory.newThread(() -> {
+                    worker.set(Boolean.TRUE);
+                    r.run();
+                }));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotNull(command);
+        int[] threadReserved = reserved.get();
+        if (threadReserved[0] > 0) {
+            threadReserved[0]--;
+            enqueue(command);
+            return;
+        }
+        if (permits.tryAcquire()) {
+            enqueue(command);
+            return;
+        }
+        switch (policy) {
+            case BLOCK:
+                block(command);
+                break;
+            case DROP_NEWEST:
+                drop(command);
+                break;
+            case DROP_OLDEST:
+                dropOldest(command);
+                break;
+            case CALLER_RUNS:
+                callerRuns.increment();
+                command.run();
+                break;
+            default:
+                rejected.increment();
+                throw new RejectedExecutionException("Task queue of " + identifier + " is full (" + capacity + " tasks)");
+        }
+    }
+
+    /**
+     * Reserves room for {@code tasks} tasks without applying the policy. On success the next
+     * {@code tasks} calls to {@link #execute(Runnable)} on this thread are queued unconditionally;
+     * {@link #releaseReserved()} must be called afterwards to give back what was not used.
+     *
+     * @return whether the room was reserved, a refusal is counted as rejected
+     */
+    public boolean tryReserve(int tasks) {
+        if (tasks <= 0) {
+            return true;
+        }
+        if (!permits.tryAcquire(tasks)) {
+            rejected.increment();
+            return false;
+        }
+        reserved.get()[0] += tasks;
+        return true;
+    }
+
+    /** Gives back the permits reserved by this thread that {@link #execute(Runnable)} did not use. */
+    public void releaseReserved() {
+        int[] threadReserved = reserved.get();
+        if (threadReserved[0] > 0) {
+            permits.release(threadReserved[0]);
+            threadReserved[0] = 0;
+        }
+    }
+
+    private void block(Runnable command) {
+        if (worker.get() != null) {
+            // waiting would mean waiting for this very thread to make room
+            callerRuns.increment();
+            command.run();
+            return;
+        }
+        delayed.increment();
+        boolean acquired;
+        try {
+            if (timeoutNanos == NO_TIMEOUT) {
+                permits.acquire();
+                acquired = true;
+            } else {
+                acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (acquired) {
+            enqueue(command);
+        } else {
+            drop(command);
+        }
+    }
+
+    private void dropOldest(Runnable command) {
+        Runnable evicted = pool.getQueue().poll();
+        if (evicted == null) {
+            // the queue is empty but its room is reserved by other threads
+            drop(command);
+            return;
+        }
+        // the evicted task never runs, its permit passes to the new task
+        drop(((Task) evicted).command);
+        enqueue(command);
+    }
+
+    private void drop(Runnable command) {
+        dropped.increment();
+        if (command instanceof Discardable) {
+            ((Discardable) command).discarded();
+        }
+    }
+
+    private void enqueue(Runnable command) {
+        try {
+            pool.execute(new Task(command));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /** Returns the number of queued tasks. */
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of tasks dropped by {@code BLOCK} (after timing out or being interrupted),
+     * {@code DROP_NEWEST} or {@code DROP_OLDEST}.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** Returns the number of times {@code BLOCK} made the posting thread wait. */
+    public long getDelayedCount() {
+        return delayed.sum();
+    }
+
+    /**
+     * Returns the number of tasks {@code CALLER_RUNS} ran on the posting thread, and of tasks
+     * {@code BLOCK} ran on the worker thread that submitted them.
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    /** Returns the number of tasks rejected by {@code ABORT} and of refused {@link #tryReserve(int)} calls. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /** Stops the worker threads once the queued tasks have run. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "BackpressureExecutor{" +
+                "identifier='" + identifier + '\'' +
+                ", capacity=" + capacity +
+                ", policy=" + policy +
+                ", queued=" + getQueueSize() +
+                ", dropped=" + getDroppedCount() +
+                ", delayed=" + getDelayedCount() +
+                ", callerRuns=" + getCallerRunsCount() +
+                ", rejected=" + getRejectedCount() +
+                '}';
+    }
+
+    /** A queued task, which frees its room in the queue when it starts. */
+    private final class Task implements Runnable {
+        private final Runnable command;
+
+        private Task(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            permits.release();
+            command.run();
+        }
+    }
+}
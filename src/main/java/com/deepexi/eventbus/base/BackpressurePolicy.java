@@ -0,0 +1,20 @@
+package com.deepexi.eventbus.base;
+
+/**
+ * <p> what a {@link BackpressureExecutor} does with a subscriber invocation when its queue is full </p>
+ */
+public enum BackpressurePolicy {
+    /** throw a {@link java.util.concurrent.RejectedExecutionException} to the posting thread **/
+    ABORT,
+    /**
+     * wait for room up to the configured timeout, if any, then drop the invocation; a subscriber
+     * posting from the worker thread runs the invocation right away instead
+     **/
+    BLOCK,
+    /** drop the invocation being submitted **/
+    DROP_NEWEST,
+    /** drop the oldest queued invocation to make room for the new one, or the new one if none is queued **/
+    DROP_OLDEST,
+    /** run the invocation on the posting thread **/
+    CALLER_RUNS
+}
@@ -0,0 +1,9 @@
+package com.deepexi.eventbus.base;
+
+/**
+ * <p> a task that is told when a {@link BackpressureExecutor} drops it instead of running it </p>
+ */
+public interface Discardable {
+    /** called at most once, on the thread that dropped the task, if the task will never run **/
+    void discarded();
+}
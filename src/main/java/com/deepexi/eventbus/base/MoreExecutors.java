@@ -3,7 +3,10 @@ package com.deepexi.eventbus.base;
 import cn.hutool.core.thread.ThreadFactoryBuilder;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -27,4 +30,87 @@ public class MoreExecutors {
         return new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS
                 , new LinkedBlockingQueue<>(65535), threadFactory);
     }
+
+    /**
+     * a new thread as the executor, with a queue of {@code capacity} tasks handled by {@code policy} when full
+     * @param timeout how long {@link BackpressurePolicy#BLOCK} waits for room in the queue,
+     *                {@link BackpressureExecutor#NO_TIMEOUT} to wait until there is room
+     */
+    public static BackpressureExecutor backpressureExecutor(String identifier, int capacity, BackpressurePolicy policy,
+                                                            long timeout, TimeUnit unit) {
+        return new BackpressureExecutor(identifier, 1, capacity, policy, timeout, unit);
+    }
+
+    /** {@code lanes} threads as the executor, tasks of the same {@link Partitioned partition key} run in order on one of them **/
+    public static PartitionedExecutor partitionedExecutor(String identifier, int lanes) {
+        return new PartitionedExecutor(identifier, lanes);
+    }
+
+    /**
+     * {@code threads} threads as the executor, running queued tasks by {@link Prioritized priority} with a head start
+     * of {@code aging} per priority level, see {@link PriorityExecutor}
+     */
+    public static PriorityExecutor priorityExecutor(String identifier, int threads, long aging, TimeUnit unit) {
+        return new PriorityExecutor(identifier, threads, 65535, aging, unit);
+    }
+
+    /** the number of tasks queued in {@code executor}, 0 for executors without a visible queue **/
+    public static int queueSize(Executor executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        if (executor instanceof BackpressureExecutor) {
+            return ((BackpressureExecutor) executor).getQueueSize();
+        }
+        if (executor instanceof PartitionedExecutor) {
+            return ((PartitionedExecutor) executor).getQueueSize();
+        }
+        if (executor instanceof PriorityExecutor) {
+            return ((PriorityExecutor) executor).getQueueSize();
+        }
+        return 0;
+    }
+
+    /** whether the running JVM has virtual threads, i.e. runs on Java 21 or later **/
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * a new virtual thread for each task as the executor, for subscribers blocking on I/O. Tasks are
+     * not ordered, as with any pool.
+     * @throws UnsupportedOperationException before Java 21
+     */
+    public static ExecutorService virtualThreadExecutor(String identifier) {
+        return VirtualThreads.newThreadPerTaskExecutor(identifier);
+    }
+
+    /**
+     * {@code lanes} virtual threads as the executor, tasks of the same {@link Partitioned partition key}
+     * run in order on one of them. Lanes are cheap, there can be many more than cores.
+     * @throws UnsupportedOperationException before Java 21
+     */
+    public static PartitionedExecutor virtualPartitionedExecutor(String identifier, int lanes) {
+        return new PartitionedExecutor(lanes, lane -> VirtualThreads.newThreadFactory(identifier + "-lane-" + lane + "-"));
+    }
+
+    /**
+     * the daemon thread shared by all buses for delayed work, such as flushing batches that did
+     * not fill up in time. Tasks run on it must be short and must not block.
+     */
+    public static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.INSTANCE;
+    }
+
+    private static final class SchedulerHolder {
+        private static final ScheduledExecutorService INSTANCE = newScheduler();
+
+        private static ScheduledExecutorService newScheduler() {
+            ThreadFactory threadFactory = ThreadFactoryBuilder.create()
+                    .setNamePrefix("deepexi-eventbus-scheduler").setDaemon(true).build();
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory);
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
 }
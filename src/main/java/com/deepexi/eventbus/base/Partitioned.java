@@ -0,0 +1,10 @@
+package com.deepexi.eventbus.base;
+
+/**
+ * <p> a task that a {@link PartitionedExecutor} runs on the lane of its key, after every task of the
+ * same key submitted before it </p>
+ */
+public interface Partitioned {
+    /** the key choosing the lane of the task, must not be null **/
+    Object partitionKey();
+}
@@ -0,0 +1,98 @@
+package com.deepexi.eventbus.base;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> an executor of several single-thread lanes. A {@link Partitioned} task runs on the lane its
+ * key hashes to, so tasks of equal keys run one at a time in submission order while tasks of
+ * different keys run in parallel. Other tasks are spread over the lanes in turn. </p>
+ *
+ * <p>Like {@link MoreExecutors#oneThreadExecutor(String)}, each lane queues up to 65535 tasks and
+ * rejects further ones.
+ */
+public final class PartitionedExecutor implements Executor {
+    private static final int LANE_CAPACITY = 65535;
+
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+
+    /**
+     * @param identifier prefix of the lane thread names
+     * @param laneCount number of lanes, usually the number of cores
+     */
+    public PartitionedExecutor(String identifier, int laneCount) {
+        this(laneCount, platformThreads(identifier));
+    }
+
+    /**
+     * @param laneCount number of lanes
+     * @param threadFactories the factory of the thread of each lane, by lane number
+     */
+    public PartitionedExecutor(int laneCount, IntFunction<ThreadFactory> threadFactories) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be positive, but was " + laneCount);
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(LANE_CAPACITY),
+                    threadFactories.apply(i));
+        }
+    }
+
+    private static IntFunction<ThreadFactory> platformThreads(String identifier) {
+        checkNotNull(identifier);
+        return lane -> ThreadFactoryBuilder.create().setNamePrefix(identifier + "-lane-" + lane + "-").build();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotNull(command);
+        int lane = command instanceof Partitioned
+                ? laneOf(((Partitioned) command).partitionKey())
+                : Math.floorMod(nextLane.getAndIncrement(), lanes.length);
+        lanes[lane].execute(command);
+    }
+
+    /** Returns the lane the tasks of {@code key} run on. */
+    public int laneOf(Object key) {
+        int hash = checkNotNull(key).hashCode();
+        // spread the high bits, hash codes of consecutive ids differ in their low bits only
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /** Returns the number of tasks queued on {@code lane}. */
+    public int getQueueSize(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    /** Returns the number of tasks queued on all lanes. */
+    public int getQueueSize() {
+        int size = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            size += lane.getQueue().size();
+        }
+        return size;
+    }
+
+    /** Stops the lanes once their queued tasks have run. */
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.deepexi.eventbus.base;
+
+/**
+ * <p> a task that a {@link PriorityExecutor} runs before queued tasks of lower priority </p>
+ */
+public interface Prioritized {
+    /** the priority of the task, higher runs first, see {@link com.deepexi.eventbus.constant.Priority} **/
+    int priority();
+}
@@ -0,0 +1,146 @@
+package com.deepexi.eventbus.base;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.deepexi.eventbus.constant.Priority;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> an executor running queued tasks by {@link Prioritized priority} rather than in submission
+ * order, without starving tasks of low priority. </p>
+ *
+ * <p>Each task gets a virtual deadline: the time it is submitted, minus a head start of {@code
+ * aging} for each {@link Priority} level, i.e. each 100 points, of its priority. Queued tasks run
+ * earliest deadline first, tasks with the same deadline in submission order. A task therefore runs
+ * before every task of lower priority submitted up to its head start earlier, and after every task
+ * submitted before that: a task of low priority waits at most the difference of head starts behind
+ * newer tasks of high priority, however many keep coming. Tasks of the same priority are taken in
+ * submission order, which is the order they run in with a single thread; several threads may run
+ * them concurrently. Other tasks count as {@link Priority#M_LEVEL}, the default subscriber priority.
+ *
+ * <p>Like {@link MoreExecutors#oneThreadExecutor(String)}, the queue is bounded, and full when it
+ * holds {@code capacity} tasks; further ones are rejected. Room in the queue is tracked by a
+ * semaphore, as in {@link BackpressureExecutor}, so concurrent submissions never exceed it.
+ */
+public final class PriorityExecutor implements Executor {
+    /** the priority points of one {@link Priority} level **/
+    private static final int LEVEL = Priority.M_LEVEL - Priority.S_LEVEL;
+
+    private final String identifier;
+    private final int capacity;
+    private final long agingNanos;
+    private final long origin = System.nanoTime();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Semaphore permits;
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * @param identifier prefix of the worker thread names
+     * @param threads number of worker threads
+     * @param capacity maximum number of queued tasks
+     * @param aging the head start of a task over tasks one priority level below it
+     */
+    public PriorityExecutor(String identifier, int threads, int capacity, long aging, TimeUnit unit) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("threads and capacity must be positive, but were "
+                    + threads + " and " + capacity);
+        }
+        if (aging <= 0L) {
+            throw new IllegalArgumentException("aging must be positive, but was " + aging);
+        }
+        this.identifier = checkNotNull(identifier);
+        this.capacity = capacity;
+        this.agingNanos = unit.toNanos(aging);
+        this.permits = new Semaphore(capacity);
+        this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                ThreadFactoryBuilder.create().setNamePrefix(identifier).build());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkNotNull(command);
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("The queue of " + identifier + " is full, " + capacity + " tasks");
+        }
+        int priority = command instanceof Prioritized ? ((Prioritized) command).priority() : Priority.M_LEVEL;
+        long deadline = deadline(System.nanoTime() - origin, priority);
+        try {
+            pool.execute(new Task(command, deadline, sequence.getAndIncrement()));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the deadline of a task of {@code priority} submitted {@code elapsed} nanoseconds after
+     * the executor was created. Saturates rather than overflows, which would reverse the order, for
+     * priorities or head starts so large that the deadline does not fit in a {@code long}: such a
+     * task runs before, or after, every task of an ordinary deadline.
+     */
+    private long deadline(long elapsed, int priority) {
+        long headStart;
+        try {
+            headStart = Math.multiplyExact(agingNanos, (long) priority) / LEVEL;
+        } catch (ArithmeticException e) {
+            headStart = priority > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        try {
+            return Math.subtractExact(elapsed, headStart);
+        } catch (ArithmeticException e) {
+            return headStart > 0L ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /** Returns the number of queued tasks. */
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Returns the head start of a task over tasks one priority level below it, in nanoseconds. */
+    public long getAgingNanos() {
+        return agingNanos;
+    }
+
+    /** Stops the worker threads once the queued tasks have run. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /** A queued task, which frees its room in the queue when it starts. */
+    private final class Task implements Runnable, Comparable<Task> {
+        private final Runnable command;
+        private final long deadline;
+        private final long sequence;
+
+        private Task(Runnable command, long deadline, long sequence) {
+            this.command = command;
+            this.deadline = deadline;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            permits.release();
+            command.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byDeadline = Long.compare(deadline, other.deadline);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+}
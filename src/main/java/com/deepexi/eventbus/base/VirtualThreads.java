@@ -0,0 +1,35 @@
+package com.deepexi.eventbus.base;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p> access to virtual threads. This is the implementation for Java 8 to 20, which have none; the
+ * multi-release jar replaces it on Java 21 and later with the one in {@code src/main/java21}. Both
+ * must keep the same members. </p>
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /** Whether the running JVM has virtual threads. */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /** An executor starting a new virtual thread for each task, named after {@code identifier}. */
+    static ExecutorService newThreadPerTaskExecutor(String identifier) {
+        throw unsupported();
+    }
+
+    /** A factory of virtual threads named {@code prefix} followed by a counter. */
+    static ThreadFactory newThreadFactory(String prefix) {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Virtual threads require Java 21 or later and a jar built "
+                + "with JDK 21, running on " + System.getProperty("java.version"));
+    }
+}
@@ -0,0 +1,17 @@
+package com.deepexi.eventbus.index;
+
+/**
+ * <p> a build-time index of the {@link com.deepexi.eventbus.annotation.Subscribe} methods of listener classes,
+ * generated by {@link com.deepexi.eventbus.processor.SubscriberIndexProcessor}. </p>
+ *
+ * <p>Generated indexes are registered as services under {@code META-INF/services} and picked up by
+ * {@link SubscriberIndexes}; listener classes that are not indexed are still parsed by reflection.
+ */
+public interface SubscriberIndex {
+
+    /**
+     * Returns the subscriber methods of {@code listenerClass}, including the ones it inherits, or
+     * {@code null} if the class is not covered by this index.
+     */
+    SubscriberMethodInfo[] getSubscriberMethods(Class<?> listenerClass);
+}
@@ -0,0 +1,99 @@
+package com.deepexi.eventbus.index;
+
+import com.deepexi.eventbus.base.Collections;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> the registry of the {@link SubscriberIndex}es known to this process. Indexes declared under
+ * {@code META-INF/services/com.deepexi.eventbus.index.SubscriberIndex} are loaded through the class
+ * loader of the listener class looked up, others (e.g. when service files were stripped by
+ * repackaging) can be added by hand. </p>
+ *
+ * <p>The declared indexes are loaded once per class loader, so an index is found in the application
+ * that defines the listener rather than in whichever one first used the bus. They are kept along
+ * with the listener classes that looked them up and only weakly referenced from here, so a class
+ * loader that is let go is not held by this registry.
+ */
+public final class SubscriberIndexes {
+    private static final Logger LOGGER = Logger.getLogger(SubscriberIndexes.class.getName());
+
+    /** The indexes added by hand, searched before the declared ones. */
+    private static final List<SubscriberIndex> ADDED = Collections.newCopyOnWriteArrayList();
+
+    /**
+     * The declared indexes of each class loader. The values are held strongly by {@link #DECLARED},
+     * since an index references its class loader and would keep the weak key alive.
+     */
+    private static final Map<ClassLoader, WeakReference<List<SubscriberIndex>>> LOADED = new WeakHashMap<>();
+
+    /** The declared indexes of the class loader of each listener class looked up. */
+    private static final ClassValue<List<SubscriberIndex>> DECLARED = new ClassValue<List<SubscriberIndex>>() {
+        @Override
+        protected List<SubscriberIndex> computeValue(Class<?> listenerClass) {
+            return declared(listenerClass.getClassLoader());
+        }
+    };
+
+    private SubscriberIndexes() {}
+
+    /** Adds {@code index} in front of the indexes already known. */
+    public static void add(SubscriberIndex index) {
+        ADDED.add(0, checkNotNull(index));
+    }
+
+    /**
+     * Returns the indexed subscriber methods of {@code listenerClass}, or {@code null} if no index
+     * covers it.
+     */
+    public static SubscriberMethodInfo[] find(Class<?> listenerClass) {
+        for (SubscriberIndex index : ADDED) {
+            SubscriberMethodInfo[] methods = index.getSubscriberMethods(listenerClass);
+            if (methods != null) {
+                return methods;
+            }
+        }
+        for (SubscriberIndex index : DECLARED.get(listenerClass)) {
+            SubscriberMethodInfo[] methods = index.getSubscriberMethods(listenerClass);
+            if (methods != null) {
+                return methods;
+            }
+        }
+        return null;
+    }
+
+    private static List<SubscriberIndex> declared(ClassLoader classLoader) {
+        synchronized (LOADED) {
+            WeakReference<List<SubscriberIndex>> loaded = LOADED.get(classLoader);
+            List<SubscriberIndex> indexes = loaded != null ? loaded.get() : null;
+            if (indexes == null) {
+                indexes = load(classLoader);
+                LOADED.put(classLoader, new WeakReference<>(indexes));
+            }
+            return indexes;
+        }
+    }
+
+    private static List<SubscriberIndex> load(ClassLoader classLoader) {
+        List<SubscriberIndex> indexes = new ArrayList<>();
+        try {
+            for (SubscriberIndex index : ServiceLoader.load(SubscriberIndex.class, classLoader)) {
+                indexes.add(index);
+            }
+        } catch (ServiceConfigurationError e) {
+            LOGGER.log(Level.WARNING, "Failed to load subscriber indexes of " + classLoader
+                    + ", listener classes not covered by the others fall back to reflection.", e);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,67 @@
+package com.deepexi.eventbus.index;
+
+import com.deepexi.eventbus.SubscriberInvoker;
+
+/**
+ * <p> the metadata of one subscriber method as recorded by a {@link SubscriberIndex}, it carries
+ * everything {@link com.deepexi.eventbus.SubscribeMethod} needs plus a direct-call invoker. </p>
+ */
+public final class SubscriberMethodInfo {
+    /** the class declaring the method, may be a superclass of the indexed listener **/
+    private final Class<?> declaringClass;
+    /** the method name **/
+    private final String methodName;
+    /** the subscribe event type, which is also the only parameter type **/
+    private final Class<?> eventType;
+    /** the method's priority **/
+    private final int priority;
+    /** the method's business name **/
+    private final String name;
+    /** the generated call site of the method **/
+    private final SubscriberInvoker invoker;
+
+    public SubscriberMethodInfo(Class<?> declaringClass, String methodName, Class<?> eventType,
+                                int priority, String name, SubscriberInvoker invoker) {
+        this.declaringClass = declaringClass;
+        this.methodName = methodName;
+        this.eventType = eventType;
+        this.priority = priority;
+        this.name = name;
+        this.invoker = invoker;
+    }
+
+    public Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?> getEventType() {
+        return eventType;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SubscriberInvoker getInvoker() {
+        return invoker;
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriberMethodInfo{" +
+                "declaringClass=" + declaringClass +
+                ", methodName='" + methodName + '\'' +
+                ", eventType=" + eventType +
+                ", priority=" + priority +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
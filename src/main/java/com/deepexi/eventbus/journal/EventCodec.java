@@ -0,0 +1,23 @@
+package com.deepexi.eventbus.journal;
+
+/**
+ * <p> turns events into the bytes a {@link Journal} stores and back. The bytes must identify the
+ * type of the event, the journal keeps nothing else about it. </p>
+ */
+public interface EventCodec {
+    /**
+     * Encodes {@code event}.
+     *
+     * @throws IllegalArgumentException if the event cannot be encoded
+     */
+    byte[] encode(Object event);
+
+    /**
+     * Decodes an event encoded by {@link #encode(Object)}, possibly by an earlier run of the
+     * application.
+     *
+     * @throws IllegalArgumentException if the bytes cannot be decoded, e.g. since the class of the
+     *     event changed
+     */
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,609 @@
+package com.deepexi.eventbus.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> a write-ahead journal of events in a directory of memory-mapped segment files, along with the
+ * checkpoints of the subscribers reading it. See "Journal" in {@link com.deepexi.eventbus.EventBus}. </p>
+ *
+ * <p>Each event is appended as a record of its {@linkplain EventCodec encoded} bytes, their CRC32 and
+ * a sequence number counting up from 1. Records go to a segment file of {@code segmentSize} bytes named
+ * after the sequence of its first record, a record that does not fit starts the next segment. What is
+ * written to the mapped memory survives a crash of the process. A background thread forces it to disk
+ * at least every {@code syncInterval}, and as soon as {@link #sync(long)} waits for it; each force
+ * covers every record appended so far, so threads waiting together share one (group commit).
+ *
+ * <p>When opened, the journal scans its segments and stops at the first record that is torn or fails
+ * its check, dropping it and everything after it. {@link #checkpoint(Map)} deletes the segments whose
+ * records are all behind every checkpoint, except the segment being written.
+ */
+public final class Journal implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(Journal.class.getName());
+
+    /** the length, CRC32 and sequence number in front of each record **/
+    private static final int HEADER = 16;
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINTS = "checkpoints";
+    private static final int CHECKPOINTS_MAGIC = 0x45424350;
+
+    private final Path directory;
+    private final EventCodec codec;
+    private final int segmentSize;
+    private final long syncIntervalNanos;
+    private final boolean syncOnPost;
+    private final long checkpointIntervalNanos;
+
+    /** Guards appending, {@link #writing} and {@link #crc}. */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private Segment writing;
+    private volatile long lastSequence;
+
+    /** Guards the hand-over between {@link #sync(long)} and the sync thread. */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition syncDone = syncLock.newCondition();
+    private long requestedSequence;
+    private volatile long syncedSequence;
+    private volatile boolean closed;
+    private final Thread syncer;
+
+    private final Map<String, Long> recoveredCheckpoints;
+    /** The checkpoints last written, guarded by this journal. */
+    private Map<String, Long> savedCheckpoints;
+
+    private Journal(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.codec = builder.codec;
+        this.segmentSize = builder.segmentSize;
+        this.syncIntervalNanos = builder.syncIntervalNanos;
+        this.syncOnPost = builder.syncOnPost;
+        this.checkpointIntervalNanos = builder.checkpointIntervalNanos;
+        Files.createDirectories(directory);
+        recover();
+        this.recoveredCheckpoints = Collections.unmodifiableMap(loadCheckpoints());
+        this.savedCheckpoints = recoveredCheckpoints;
+        this.syncer = new Thread(this::syncLoop, "deepexi-eventbus-journal-" + directory.getFileName());
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    /** Opens the segments left by an earlier run and positions the writer after their last valid record. */
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort((f1, f2) -> Long.compare(firstSequenceOf(f1), firstSequenceOf(f2)));
+        long expected = -1L;
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            long first = firstSequenceOf(file);
+            if (expected != -1L && first != expected) {
+                LOGGER.warning("Journal " + directory + " misses the records from " + expected + " to " + (first - 1)
+                        + ", dropping the segments from " + file.getFileName());
+                deleteAll(files.subList(i, files.size()));
+                break;
+            }
+            Segment segment = Segment.open(file, first, segmentSize);
+            segments.add(segment);
+            boolean intact = segment.scan();
+            expected = segment.lastSequence + 1;
+            if (!intact) {
+                LOGGER.warning("Journal " + directory + " ends with a torn record after " + segment.lastSequence
+                        + ", dropping it and what follows");
+                segment.truncate();
+                deleteAll(files.subList(i + 1, files.size()));
+                break;
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.create(directory, 1L, segmentSize));
+        }
+        writing = segments.get(segments.size() - 1);
+        lastSequence = writing.lastSequence;
+        syncedSequence = lastSequence;
+        requestedSequence = lastSequence;
+    }
+
+    private static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Appends a record of {@code payload} and returns its sequence number. The record survives a
+     * crash of the process from now on, and a crash of the machine once {@link #sync(long)} returns.
+     *
+     * @throws IllegalArgumentException if the payload is empty or does not fit in a segment
+     * @throws IllegalStateException if the journal is closed
+     */
+    public long append(byte[] payload) {
+        int length = payload.length;
+        if (length == 0 || length > segmentSize - HEADER) {
+            throw new IllegalArgumentException("A journal record must hold 1 to " + (segmentSize - HEADER)
+                    + " bytes, but was " + length);
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal " + directory + " is closed");
+            }
+            Segment segment = writing;
+            if (segment.position + HEADER + length > segment.buffer.capacity()) {
+                segment = roll();
+            }
+            long sequence = lastSequence + 1;
+            crc.reset();
+            crc.update(payload, 0, length);
+            segment.write(payload, (int) crc.getValue(), sequence);
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Segment roll() {
+        try {
+            Segment segment = Segment.create(directory, lastSequence + 1, segmentSize);
+            segments.add(segment);
+            writing = segment;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a segment in journal " + directory, e);
+        }
+    }
+
+    /**
+     * Waits until the record of {@code sequence}, and every record before it, has been forced to
+     * disk. Threads waiting at the same time are served by a single force.
+     */
+    public void sync(long sequence) {
+        if (syncedSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (sequence > requestedSequence) {
+                requestedSequence = sequence;
+                syncRequested.signal();
+            }
+            while (syncedSequence < sequence) {
+                syncDone.awaitUninterruptibly();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        while (!closed) {
+            syncLock.lock();
+            try {
+                if (!closed && requestedSequence <= syncedSequence) {
+                    syncRequested.awaitNanos(syncIntervalNanos);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                syncLock.unlock();
+            }
+            try {
+                force();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Could not force journal " + directory + " to disk", e);
+            }
+        }
+    }
+
+    /** Forces the records appended so far to disk, run by the sync thread only, or by close once it stopped. */
+    private void force() {
+        long target = lastSequence;
+        long synced = syncedSequence;
+        if (target <= synced) {
+            return;
+        }
+        for (Segment segment : segments) {
+            if (segment.lastSequence > synced) {
+                segment.buffer.force();
+            }
+        }
+        syncLock.lock();
+        try {
+            syncedSequence = target;
+            syncDone.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Calls {@code action} with each event appended after {@code after} up to {@code upTo}, and its
+     * sequence number, in order. Events that cannot be decoded are logged and skipped.
+     */
+    public void forEach(long after, long upTo, ObjLongConsumer<Object> action) {
+        for (Segment segment : segments) {
+            if (segment.lastSequence <= after) {
+                continue;
+            }
+            if (segment.firstSequence > upTo) {
+                break;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int position = 0;
+            for (long sequence = segment.firstSequence; sequence <= upTo && sequence <= segment.lastSequence;
+                    sequence++) {
+                int length = buffer.getInt(position);
+                if (sequence > after) {
+                    byte[] payload = new byte[length];
+                    buffer.position(position + HEADER);
+                    buffer.get(payload);
+                    Object event;
+                    try {
+                        event = codec.decode(payload);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.SEVERE, "Skipping event " + sequence + " of journal " + directory
+                                + ", which could not be decoded", e);
+                        position += HEADER + length;
+                        continue;
+                    }
+                    action.accept(event, sequence);
+                }
+                position += HEADER + length;
+            }
+        }
+    }
+
+    /**
+     * Writes the checkpoints of all subscribers, each the sequence number up to which the subscriber
+     * of that name has received its events, and deletes the segments no checkpoint needs anymore.
+     * Nothing is written if the checkpoints did not change.
+     *
+     * @throws UncheckedIOException if the checkpoints could not be written
+     */
+    public synchronized void checkpoint(Map<String, Long> checkpoints) {
+        if (!checkpoints.equals(savedCheckpoints)) {
+            try {
+                writeCheckpoints(checkpoints);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write the checkpoints of journal " + directory, e);
+            }
+            savedCheckpoints = new HashMap<>(checkpoints);
+        }
+        long oldest = checkpoints.isEmpty() ? lastSequence : Collections.min(checkpoints.values());
+        // the segment being written is never deleted, it is the last one
+        while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= oldest) {
+            Segment segment = segments.remove(0);
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not delete segment " + segment.path, e);
+            }
+        }
+    }
+
+    private void writeCheckpoints(Map<String, Long> checkpoints) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(CHECKPOINTS_MAGIC);
+        out.writeInt(checkpoints.size());
+        for (Map.Entry<String, Long> checkpoint : checkpoints.entrySet()) {
+            out.writeUTF(checkpoint.getKey());
+            out.writeLong(checkpoint.getValue());
+        }
+        Path file = directory.resolve(CHECKPOINTS);
+        Path temporary = directory.resolve(CHECKPOINTS + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the checkpoints written by an earlier run, none past the last record: records lost with
+     * the machine may be appended again under the same sequence numbers.
+     */
+    private Map<String, Long> loadCheckpoints() throws IOException {
+        Path file = directory.resolve(CHECKPOINTS);
+        Map<String, Long> checkpoints = new HashMap<>();
+        if (!Files.exists(file)) {
+            return checkpoints;
+        }
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != CHECKPOINTS_MAGIC) {
+                throw new IOException(file + " is not a checkpoint file");
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                checkpoints.put(in.readUTF(), Math.min(in.readLong(), lastSequence));
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Stops the sync thread and forces every record to disk. Appending afterwards throws an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        syncLock.lock();
+        try {
+            syncRequested.signal();
+        } finally {
+            syncLock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        force();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public EventCodec getCodec() {
+        return codec;
+    }
+
+    /** Whether posting a journaled event waits until the event is forced to disk. */
+    public boolean isSyncOnPost() {
+        return syncOnPost;
+    }
+
+    /** How often the bus writes the checkpoints of its subscribers. */
+    public long getCheckpointIntervalNanos() {
+        return checkpointIntervalNanos;
+    }
+
+    /** Returns the sequence number of the last record, 0 if there is none. */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /** Returns the sequence number up to which records have been forced to disk. */
+    public long getSyncedSequence() {
+        return syncedSequence;
+    }
+
+    /** Returns the checkpoints found when the journal was opened, by subscriber name. */
+    public Map<String, Long> getRecoveredCheckpoints() {
+        return recoveredCheckpoints;
+    }
+
+    /** Returns the number of segment files. */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Journal{" +
+                "directory=" + directory +
+                ", segments=" + getSegmentCount() +
+                ", lastSequence=" + lastSequence +
+                ", syncedSequence=" + syncedSequence +
+                '}';
+    }
+
+    /** A memory-mapped segment file, its records start with the one of {@link #firstSequence}. */
+    private static final class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        /** Where the next record goes, guarded by the append lock. */
+        private int position;
+        /** The sequence number of the last record, {@code firstSequence - 1} while there is none. */
+        private volatile long lastSequence;
+
+        private Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+
+        static Segment create(Path directory, long firstSequence, int size) throws IOException {
+            Path path = directory.resolve(String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                return new Segment(path, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(Path path, long firstSequence, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // segments keep the size they were created with
+                long mapped = channel.size() > HEADER ? Math.min(channel.size(), Integer.MAX_VALUE) : size;
+                return new Segment(path, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped));
+            }
+        }
+
+        /**
+         * Finds the records of the segment, leaving {@link #position} after the last valid one.
+         *
+         * @return {@code false} if the segment ends with a torn or corrupted record
+         */
+        boolean scan() {
+            CRC32 crc = new CRC32();
+            ByteBuffer records = buffer.duplicate();
+            int capacity = records.capacity();
+            long expected = firstSequence;
+            while (position + HEADER <= capacity) {
+                int length = records.getInt(position);
+                if (length == 0) {
+                    return true;
+                }
+                if (length < 0 || length > capacity - position - HEADER
+                        || records.getLong(position + 8) != expected) {
+                    return false;
+                }
+                byte[] payload = new byte[length];
+                records.position(position + HEADER);
+                records.get(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != records.getInt(position + 4)) {
+                    return false;
+                }
+                position += HEADER + length;
+                lastSequence = expected++;
+            }
+            return true;
+        }
+
+        /** Clears everything after the last valid record, so that no stale record follows new ones. */
+        void truncate() {
+            for (int i = position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+
+        void write(byte[] payload, int checksum, long sequence) {
+            buffer.position(position);
+            buffer.putInt(payload.length);
+            buffer.putInt(checksum);
+            buffer.putLong(sequence);
+            buffer.put(payload);
+            position += HEADER + payload.length;
+            lastSequence = sequence;
+        }
+    }
+
+    /** Builder of a {@link Journal}, which opens it. */
+    public static final class Builder {
+        private Path directory;
+        private EventCodec codec = SerializableCodec.INSTANCE;
+        private int segmentSize = 64 << 20;
+        private long syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(10L);
+        private boolean syncOnPost;
+        private long checkpointIntervalNanos = TimeUnit.SECONDS.toNanos(1L);
+
+        private Builder() {
+        }
+
+        public static Builder aJournal() {
+            return new Builder();
+        }
+
+        /** The directory of the segment and checkpoint files, created if missing. Required. */
+        public Builder withDirectory(Path directory) {
+            this.directory = checkNotNull(directory);
+            return this;
+        }
+
+        /** How events are stored, {@link SerializableCodec} by default. */
+        public Builder withCodec(EventCodec codec) {
+            this.codec = checkNotNull(codec);
+            return this;
+        }
+
+        /** The size of each segment file, 64 MB by default, which bounds the size of a record as well. */
+        public Builder withSegmentSize(int segmentSize) {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("segmentSize must be at least 4096 bytes, but was " + segmentSize);
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /** The longest time appended records wait to be forced to disk, 10 milliseconds by default. */
+        public Builder withSyncInterval(long interval, TimeUnit unit) {
+            if (interval <= 0L) {
+                throw new IllegalArgumentException("interval must be positive, but was " + interval);
+            }
+            this.syncIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Whether posting an event waits until it is forced to disk, so that it survives a crash of
+         * the machine and not only of the process. {@code false} by default.
+         */
+        public Builder withSyncOnPost(boolean syncOnPost) {
+            this.syncOnPost = syncOnPost;
+            return this;
+        }
+
+        /** How often the bus writes the checkpoints of its subscribers, every second by default. */
+        public Builder withCheckpointInterval(long interval, TimeUnit unit) {
+            if (interval <= 0L) {
+                throw new IllegalArgumentException("interval must be positive, but was " + interval);
+            }
+            this.checkpointIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * Opens the journal, recovering the records and checkpoints left in the directory.
+         *
+         * @throws UncheckedIOException if the directory cannot be read or written
+         */
+        public Journal build() {
+            if (directory == null) {
+                throw new IllegalStateException("A journal needs a directory");
+            }
+            try {
+                return new Journal(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open journal " + directory, e);
+            }
+        }
+    }
+}
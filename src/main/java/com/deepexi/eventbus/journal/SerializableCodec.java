@@ -0,0 +1,45 @@
+package com.deepexi.eventbus.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * <p> the default {@link EventCodec}, which stores events by Java serialization. Events must be
+ * {@link Serializable}. </p>
+ *
+ * <p>It needs no setup but is slow and verbose next to a codec written for the events at hand; a
+ * journal written with it must only be read by the application that wrote it.
+ */
+public final class SerializableCodec implements EventCodec {
+    public static final SerializableCodec INSTANCE = new SerializableCodec();
+
+    private SerializableCodec() {
+    }
+
+    @Override
+    public byte[] encode(Object event) {
+        if (!(event instanceof Serializable)) {
+            throw new IllegalArgumentException("Event " + event.getClass().getName() + " is not Serializable");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not serialize " + event.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("Could not deserialize an event", e);
+        }
+    }
+}
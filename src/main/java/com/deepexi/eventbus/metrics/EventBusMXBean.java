@@ -0,0 +1,30 @@
+package com.deepexi.eventbus.metrics;
+
+import java.util.List;
+
+/**
+ * <p> the JMX view of one {@link com.deepexi.eventbus.EventBus}, registered as
+ * {@code com.deepexi.eventbus:type=EventBus,name=<identifier>} </p>
+ */
+public interface EventBusMXBean {
+
+    String getIdentifier();
+
+    /** the number of events posted, including the events of {@code postAll} and {@code tryPost} **/
+    long getPostCount();
+
+    /** the number of posted events nobody subscribed to, each reposted as a DeadEvent **/
+    long getDeadEventCount();
+
+    /** the number of exceptions thrown by subscribers **/
+    long getExceptionCount();
+
+    /** the number of events or subscriber calls waiting in the dispatcher and the executor **/
+    int getQueueDepth();
+
+    /** the statistics of each subscriber name **/
+    List<SubscriberStatistics> getSubscriberStatistics();
+
+    /** resets every counter and histogram to zero **/
+    void reset();
+}
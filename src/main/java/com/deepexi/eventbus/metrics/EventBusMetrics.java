@@ -0,0 +1,164 @@
+package com.deepexi.eventbus.metrics;
+
+import com.deepexi.eventbus.base.Collections;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.deepexi.eventbus.base.Preconditions.checkNotNull;
+
+/**
+ * <p> the metrics of one event bus: counters of posts, dead events and subscriber
+ * exceptions, the queue depth, and the {@link SubscriberMetrics} of each subscriber name. Posts
+ * are counted per thread, like subscriber calls, see {@link SubscriberMetrics}. </p>
+ *
+ * <p>A bus built with {@link com.deepexi.eventbus.EventBus.Builder#withJmx()} registers its metrics
+ * as an MXBean when it is created. The platform MBean server then keeps them, and the executor they
+ * read the queue depth from, until {@link #unregister()}.
+ */
+public final class EventBusMetrics implements EventBusMXBean {
+    private static final Logger LOGGER = Logger.getLogger(EventBusMetrics.class.getName());
+
+    /** the JMX domain of the bus MXBeans **/
+    public static final String DOMAIN = "com.deepexi.eventbus";
+
+    /** tells buses with the same identifier apart **/
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final String identifier;
+    private final IntSupplier queueDepth;
+    private final StripedCounter posts = new StripedCounter();
+    private final LongAdder deadEvents = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final ConcurrentMap<String, SubscriberMetrics> subscribers = Collections.newConcurrentMap();
+
+    private volatile ObjectName objectName;
+
+    /**
+     * @param identifier the identifier of the bus
+     * @param queueDepth reads the number of events or calls waiting in the bus, must not hold on to the bus
+     */
+    public EventBusMetrics(String identifier, IntSupplier queueDepth) {
+        this.identifier = checkNotNull(identifier);
+        this.queueDepth = checkNotNull(queueDepth);
+    }
+
+    public void onPost() {
+        posts.increment();
+    }
+
+    public void onPosts(int count) {
+        posts.add(count);
+    }
+
+    public void onDeadEvent() {
+        deadEvents.increment();
+    }
+
+    public void onException() {
+        exceptions.increment();
+    }
+
+    /** Returns the metrics of the subscribers named {@code name}, created on first use. */
+    public SubscriberMetrics subscriber(String name) {
+        SubscriberMetrics metrics = subscribers.get(name);
+        return metrics != null ? metrics : subscribers.computeIfAbsent(name, SubscriberMetrics::new);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server. A bus whose identifier is already
+     * registered gets an additional {@code instance} key. Failures are logged, not thrown.
+     */
+    public synchronized void register() {
+        if (objectName != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String baseName = DOMAIN + ":type=EventBus,name=" + ObjectName.quote(identifier);
+        try {
+            ObjectName name = new ObjectName(baseName);
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                name = new ObjectName(baseName + ",instance=" + INSTANCES.incrementAndGet());
+                server.registerMBean(this, name);
+            }
+            objectName = name;
+        } catch (JMException | SecurityException e) {
+            LOGGER.log(Level.WARNING, "Could not register the metrics of EventBus " + identifier + " with JMX", e);
+        }
+    }
+
+    /** Unregisters these metrics from the platform MBean server, if they were registered. */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Metrics of EventBus " + identifier + " were already unregistered", e);
+        }
+        objectName = null;
+    }
+
+    /** Returns the name these metrics are registered under, or {@code null}. */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public long getPostCount() {
+        return posts.sum();
+    }
+
+    @Override
+    public long getDeadEventCount() {
+        return deadEvents.sum();
+    }
+
+    @Override
+    public long getExceptionCount() {
+        return exceptions.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public List<SubscriberStatistics> getSubscriberStatistics() {
+        List<SubscriberStatistics> statistics = new ArrayList<>(subscribers.size());
+        for (SubscriberMetrics metrics : subscribers.values()) {
+            statistics.add(metrics.snapshot());
+        }
+        return statistics;
+    }
+
+    @Override
+    public void reset() {
+        posts.reset();
+        deadEvents.reset();
+        exceptions.reset();
+        for (SubscriberMetrics metrics : subscribers.values()) {
+            metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.deepexi.eventbus.metrics;
+
+/**
+ * <p> counts the calls of one subscriber, see {@link SubscriberMetrics#newCounter()}. </p>
+ *
+ * <p>Calls are added to the per-thread cells of the metrics of the subscriber's name, so that
+ * subscribers of the same name called from several threads neither contend nor lose counts.
+ */
+public final class InvocationCounter {
+    private final StripedCounter invocations;
+
+    InvocationCounter(StripedCounter invocations) {
+        this.invocations = invocations;
+    }
+
+    /** Counts a call about to start and returns whether its duration should be recorded. */
+    public boolean increment() {
+        return (invocations.increment() & (SubscriberMetrics.SAMPLE_INTERVAL - 1)) == 0;
+    }
+}
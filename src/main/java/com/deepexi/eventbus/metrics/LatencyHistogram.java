@@ -0,0 +1,100 @@
+package com.deepexi.eventbus.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> a histogram of durations in nanoseconds with one bucket per power of two. Recording is a few
+ * atomic increments, meant for sampled durations where threads rarely record at the same time;
+ * percentiles are estimated as the upper bound of the bucket they fall in, i.e. within a factor of
+ * two. </p>
+ */
+public final class LatencyHistogram {
+    /** bucket {@code i} counts durations in [2^(i-1), 2^i), the last one everything longer **/
+    private static final int BUCKETS = 48;
+
+    private final AtomicLong[] buckets = new AtomicLong[BUCKETS];
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new AtomicLong();
+        }
+    }
+
+    /** Records a duration, negative durations count as 0. */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        buckets[bucketOf(value)].incrementAndGet();
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // another thread raised the maximum, compare again
+        }
+    }
+
+    /**
+     * Returns the number of significant bits of {@code value}, at most the last bucket. Shifts
+     * rather than {@link Long#numberOfLeadingZeros(long)}, whose non-intrinsic form is compiled
+     * late on this rarely taken path and allocates while the JIT replaces it.
+     */
+    private static int bucketOf(long value) {
+        int bits = 0;
+        for (int shift = 32; shift > 0; shift >>= 1) {
+            if (value >>> shift != 0) {
+                value >>>= shift;
+                bits += shift;
+            }
+        }
+        return Math.min(BUCKETS - 1, bits + (int) value);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0L : sum.get() / n;
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns an upper bound of the {@code percentile} (between 0 and 100) of the recorded
+     * durations, 0 if none was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].get();
+            total += counts[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min(i == 0 ? 0L : (1L << i) - 1, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset() {
+        for (AtomicLong bucket : buckets) {
+            bucket.set(0L);
+        }
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+}
@@ -0,0 +1,136 @@
+package com.deepexi.eventbus.metrics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * <p> a counter incremented by many threads without contention nor lost updates: each thread counts
+ * in a cell of its own, which only that thread writes, and the count is the sum of the cells. </p>
+ *
+ * <p>An increment is an ordered store, without a compare-and-set. A thread finds its cell in the
+ * slot its id hashes to, as {@link java.util.concurrent.atomic.LongAdder} stripes by thread probe;
+ * a slot is written when the first thread hashing to it counts, and only read afterwards. A thread
+ * whose slot belongs to another thread finds its cell in a thread-local instead. The cell of a
+ * thread that ended is folded into the count, and its slot freed, once another thread starts
+ * counting, so threads that come and go, such as virtual threads, do not pile up cells.
+ */
+final class StripedCounter {
+    /** The number of slots, a power of two. */
+    private static final int SLOTS = slots();
+
+    /**
+     * The cell of the thread owning each slot, written under {@link #cells} and read racily: a
+     * thread that misses its cell takes the slow path.
+     */
+    private final Cell[] slots = new Cell[SLOTS];
+
+    private final ThreadLocal<Cell> cell = ThreadLocal.withInitial(this::newCell);
+
+    /** The cells of the live threads that counted, guarded by itself. */
+    private final List<Cell> cells = new ArrayList<>();
+
+    /** The counts of the threads that ended, guarded by {@link #cells}. */
+    private long retired;
+
+    /** The count at the last {@link #reset()}, guarded by {@link #cells}. */
+    private long base;
+
+    /** Adds one and returns the number of increments made by the calling thread, which only grows. */
+    long increment() {
+        // the lookup of the slot is spelled out here, the path of a post is deep enough already
+        Thread thread = Thread.currentThread();
+        Cell threadCell = slots[(int) thread.getId() & (SLOTS - 1)];
+        if (threadCell == null || threadCell.owner != thread) {
+            threadCell = threadCell(thread);
+        }
+        long value = threadCell.value + 1;
+        Cell.VALUE.lazySet(threadCell, value);
+        return value;
+    }
+
+    void add(long count) {
+        Thread thread = Thread.currentThread();
+        Cell threadCell = slots[slot(thread)];
+        if (threadCell == null || threadCell.owner != thread) {
+            threadCell = threadCell(thread);
+        }
+        Cell.VALUE.lazySet(threadCell, threadCell.value + count);
+    }
+
+    /** Returns the cell of {@code thread}, which is not in its slot, and puts it there if the slot is free. */
+    private Cell threadCell(Thread thread) {
+        Cell threadCell = cell.get();
+        int slot = slot(thread);
+        if (slots[slot] == null) {
+            synchronized (cells) {
+                if (slots[slot] == null) {
+                    slots[slot] = threadCell;
+                }
+            }
+        }
+        return threadCell;
+    }
+
+    private static int slot(Thread thread) {
+        return (int) thread.getId() & (SLOTS - 1);
+    }
+
+    long sum() {
+        synchronized (cells) {
+            return rawSum() - base;
+        }
+    }
+
+    /** Starts counting from zero again, the cells keep their values. */
+    void reset() {
+        synchronized (cells) {
+            base = rawSum();
+        }
+    }
+
+    private long rawSum() {
+        long sum = retired;
+        for (Cell counted : cells) {
+            sum += counted.value;
+        }
+        return sum;
+    }
+
+    private Cell newCell() {
+        Cell threadCell = new Cell(Thread.currentThread());
+        synchronized (cells) {
+            for (Iterator<Cell> it = cells.iterator(); it.hasNext(); ) {
+                Cell counted = it.next();
+                if (!counted.owner.isAlive()) {
+                    retired += counted.value;
+                    it.remove();
+                    // frees the slot for the threads hashing to it
+                    int slot = slot(counted.owner);
+                    if (slots[slot] == counted) {
+                        slots[slot] = null;
+                    }
+                }
+            }
+            cells.add(threadCell);
+        }
+        return threadCell;
+    }
+
+    private static int slots() {
+        int threads = Math.max(4 * Runtime.getRuntime().availableProcessors(), 16);
+        return Math.min(Integer.highestOneBit(threads - 1) << 1, 256);
+    }
+
+    private static final class Cell {
+        private static final AtomicLongFieldUpdater<Cell> VALUE = AtomicLongFieldUpdater.newUpdater(Cell.class, "value");
+
+        private final Thread owner;
+        private volatile long value;
+
+        private Cell(Thread owner) {
+            this.owner = owner;
+        }
+    }
+}
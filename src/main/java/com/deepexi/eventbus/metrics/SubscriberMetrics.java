@@ -0,0 +1,68 @@
+package com.deepexi.eventbus.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> the metrics of the subscribers sharing a name, usually one subscriber method of all instances
+ * of a listener class. </p>
+ *
+ * <p>Calls are counted per thread, in cells that only their thread writes, so that threads
+ * calling subscribers of the same name at once neither contend nor lose counts. Only the duration
+ * of one call out of {@value #SAMPLE_INTERVAL} of each thread is recorded, which keeps the clock
+ * off the path of the other calls.
+ */
+public final class SubscriberMetrics {
+    /** the duration of one call out of this many is recorded, a power of two **/
+    public static final int SAMPLE_INTERVAL = 1024;
+
+    private final String name;
+    private final StripedCounter invocations = new StripedCounter();
+    private final LongAdder exceptions = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    SubscriberMetrics(String name) {
+        this.name = name;
+    }
+
+    /** Returns a new counter for the calls of one subscriber. */
+    public InvocationCounter newCounter() {
+        return new InvocationCounter(invocations);
+    }
+
+    public void onException() {
+        exceptions.increment();
+    }
+
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocationCount() {
+        return invocations.sum();
+    }
+
+    public long getExceptionCount() {
+        return exceptions.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /** Returns a snapshot of these metrics, as exposed through JMX. */
+    public SubscriberStatistics snapshot() {
+        return new SubscriberStatistics(name, getInvocationCount(), getExceptionCount(), latency.getCount(),
+                latency.getMeanNanos(), latency.getPercentileNanos(50), latency.getPercentileNanos(99),
+                latency.getMaxNanos());
+    }
+
+    void reset() {
+        invocations.reset();
+        exceptions.reset();
+        latency.reset();
+    }
+}
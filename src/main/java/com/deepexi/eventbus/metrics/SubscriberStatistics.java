@@ -0,0 +1,78 @@
+package com.deepexi.eventbus.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * <p> a snapshot of {@link SubscriberMetrics}, mapped to a composite value by JMX. Durations are in
+ * nanoseconds and computed from the sampled calls only. </p>
+ */
+public final class SubscriberStatistics {
+    private final String name;
+    private final long invocationCount;
+    private final long exceptionCount;
+    private final long sampledCount;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"name", "invocationCount", "exceptionCount", "sampledCount",
+            "meanNanos", "p50Nanos", "p99Nanos", "maxNanos"})
+    public SubscriberStatistics(String name, long invocationCount, long exceptionCount, long sampledCount,
+                                long meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+        this.name = name;
+        this.invocationCount = invocationCount;
+        this.exceptionCount = exceptionCount;
+        this.sampledCount = sampledCount;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocationCount() {
+        return invocationCount;
+    }
+
+    public long getExceptionCount() {
+        return exceptionCount;
+    }
+
+    public long getSampledCount() {
+        return sampledCount;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SubscriberStatistics{" +
+                "name='" + name + '\'' +
+                ", invocationCount=" + invocationCount +
+                ", exceptionCount=" + exceptionCount +
+                ", sampledCount=" + sampledCount +
+                ", meanNanos=" + meanNanos +
+                ", p50Nanos=" + p50Nanos +
+                ", p99Nanos=" + p99Nanos +
+                ", maxNanos=" + maxNanos +
+                '}';
+    }
+}
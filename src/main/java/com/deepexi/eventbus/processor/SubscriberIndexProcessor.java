@@ -0,0 +1,301 @@
+package com.deepexi.eventbus.processor;
+
+import com.deepexi.eventbus.annotation.Subscribe;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p> builds a {@link com.deepexi.eventbus.index.SubscriberIndex} of every listener class compiled
+ * in the same javac run, so the registry does not need to scan them with reflection at runtime. </p>
+ *
+ * <p>The processor is not registered as a service, so that depending on the bus does not run it in
+ * every compilation: it is enabled with {@code -processor
+ * com.deepexi.eventbus.processor.SubscriberIndexProcessor}, and then names the index class it
+ * generates after {@code -Aeventbus.index=com.example.MyEventBusIndex}. The generated class is
+ * registered as a service, so nothing else needs to be configured at runtime. Listener classes whose methods cannot be called
+ * from the index's package, or that have batch subscribers, are left out and keep using reflection.
+ */
+public class SubscriberIndexProcessor extends AbstractProcessor {
+    /** the option naming the generated index class **/
+    public static final String OPTION_INDEX = "eventbus.index";
+
+    private static final String SERVICE_FILE = "META-INF/services/com.deepexi.eventbus.index.SubscriberIndex";
+
+    /** the listener classes seen so far, in compilation order **/
+    private final Set<TypeElement> listenerTypes = new LinkedHashSet<>();
+
+    private String indexClassName;
+    private boolean generated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        indexClassName = processingEnv.getOptions().get(OPTION_INDEX);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Subscribe.class.getName());
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_INDEX);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Messager messager = processingEnv.getMessager();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Subscribe.class)) {
+            if (element.getKind() == ElementKind.METHOD) {
+                ExecutableElement method = (ExecutableElement) element;
+                if (method.getParameters().size() != 1) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Target method[" + method.getEnclosingElement() + "#"
+                            + method.getSimpleName() + "] can only be defined in 1 parameter, but found "
+                            + method.getParameters().size() + " now.", method);
+                }
+            }
+        }
+        if (indexClassName == null || indexClassName.trim().isEmpty()) {
+            return false;
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectTypes(type);
+        }
+        if (roundEnv.processingOver() && !generated) {
+            generated = true;
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void collectTypes(TypeElement type) {
+        listenerTypes.add(type);
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectTypes(nested);
+        }
+    }
+
+    private void writeIndex() {
+        int lastDot = indexClassName.lastIndexOf('.');
+        String packageName = lastDot > 0 ? indexClassName.substring(0, lastDot) : "";
+        String simpleName = indexClassName.substring(lastDot + 1);
+
+        Map<TypeElement, List<ExecutableElement>> entries = new LinkedHashMap<>();
+        for (TypeElement type : listenerTypes) {
+            if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            List<ExecutableElement> methods = findSubscriberMethods(type);
+            if (!methods.isEmpty() && isIndexable(type, methods, packageName)) {
+                entries.put(type, methods);
+            }
+        }
+
+        try {
+            JavaFileObject source = processingEnv.getFiler().createSourceFile(indexClassName);
+            try (Writer writer = source.openWriter()) {
+                writer.write(render(packageName, simpleName, entries));
+            }
+            FileObject service = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = service.openWriter()) {
+                writer.write(indexClassName);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write subscriber index " + indexClassName + ": " + e);
+        }
+    }
+
+    /**
+     * Collects the annotated methods of {@code type} and its superclasses, the same way the registry
+     * does at runtime: the subclass comes first and a method signature is only taken once.
+     */
+    private List<ExecutableElement> findSubscriberMethods(TypeElement type) {
+        Map<String, ExecutableElement> identifiers = new LinkedHashMap<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            if (current.getQualifiedName().contentEquals(Object.class.getName())) {
+                break;
+            }
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (method.getAnnotation(Subscribe.class) == null || method.getParameters().size() != 1) {
+                    continue;
+                }
+                String identifier = method.getSimpleName() + "(" + erasure(method.getParameters().get(0).asType()) + ")";
+                if (!identifiers.containsKey(identifier)) {
+                    identifiers.put(identifier, method);
+                }
+            }
+        }
+        return new ArrayList<>(identifiers.values());
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    /** Whether the generated index can name the listener and call all of its methods directly. */
+    private boolean isIndexable(TypeElement type, List<ExecutableElement> methods, String packageName) {
+        if (!isAccessible(type, packageName)) {
+            return false;
+        }
+        for (ExecutableElement method : methods) {
+            // the event type of a batch subscriber is not its parameter type
+            if (method.getModifiers().contains(Modifier.PRIVATE) || method.getAnnotation(Subscribe.class).batchSize() > 0) {
+                return false;
+            }
+            // the index does not carry the conflation flag nor the topic
+            if (method.getAnnotation(Subscribe.class).conflate() || !method.getAnnotation(Subscribe.class).topic().isEmpty()) {
+                return false;
+            }
+            // the generated invoker does not return what the method returns, which requests need
+            if (method.getReturnType().getKind() != TypeKind.VOID) {
+                return false;
+            }
+            TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+            if (!isAccessible(declaringType, packageName)) {
+                return false;
+            }
+            if (!method.getModifiers().contains(Modifier.PUBLIC) && !packageOf(declaringType).equals(packageName)) {
+                return false;
+            }
+            TypeMirror eventType = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+            if (eventType.getKind() == TypeKind.DECLARED
+                    && !isAccessible((TypeElement) ((DeclaredType) eventType).asElement(), packageName)) {
+                return false;
+            }
+            if (eventType.getKind() != TypeKind.DECLARED && eventType.getKind() != TypeKind.ARRAY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAccessible(TypeElement type, String packageName) {
+        boolean samePackage = packageOf(type).equals(packageName);
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement current = (TypeElement) element;
+            if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) && !samePackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.getQualifiedName().toString();
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String render(String packageName, String simpleName, Map<TypeElement, List<ExecutableElement>> entries) {
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import com.deepexi.eventbus.index.SubscriberIndex;\n");
+        out.append("import com.deepexi.eventbus.index.SubscriberMethodInfo;\n\n");
+        out.append("import java.util.HashMap;\n");
+        out.append("import java.util.Map;\n\n");
+        out.append("/** Generated by ").append(getClass().getName()).append(", do not edit. */\n");
+        out.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        out.append("public final class ").append(simpleName).append(" implements SubscriberIndex {\n");
+        out.append("    private static final Map<Class<?>, SubscriberMethodInfo[]> INDEX = new HashMap<>();\n\n");
+        out.append("    static {\n");
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : entries.entrySet()) {
+            TypeElement listener = entry.getKey();
+            String listenerName = processingEnv.getElementUtils().getBinaryName(listener).toString();
+            out.append("        INDEX.put(").append(erasure(listener.asType())).append(".class, new SubscriberMethodInfo[]{\n");
+            for (ExecutableElement method : entry.getValue()) {
+                renderMethod(out, listenerName, method);
+            }
+            out.append("        });\n");
+        }
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public SubscriberMethodInfo[] getSubscriberMethods(Class<?> listenerClass) {\n");
+        out.append("        return INDEX.get(listenerClass);\n");
+        out.append("    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private void renderMethod(StringBuilder out, String listenerName, ExecutableElement method) {
+        Subscribe subscribe = method.getAnnotation(Subscribe.class);
+        String declaringType = erasure(method.getEnclosingElement().asType());
+        String eventType = erasure(method.getParameters().get(0).asType());
+        String methodName = method.getSimpleName().toString();
+        String name = "".equals(subscribe.name().trim()) ? listenerName + "#" + methodName : subscribe.name();
+        String receiver = method.getModifiers().contains(Modifier.STATIC)
+                ? declaringType
+                : "((" + declaringType + ") t)";
+        out.append("                new SubscriberMethodInfo(")
+                .append(declaringType).append(".class, ")
+                .append(literal(methodName)).append(", ")
+                .append(eventType).append(".class, ")
+                .append(subscribe.priority()).append(", ")
+                .append(literal(name)).append(",\n")
+                .append("                        (t, e) -> ").append(receiver).append('.').append(methodName)
+                .append("((").append(eventType).append(") e)),\n");
+    }
+
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
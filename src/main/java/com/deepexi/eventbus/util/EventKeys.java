@@ -0,0 +1,83 @@
+package com.deepexi.eventbus.util;
+
+import com.deepexi.eventbus.annotation.EventKey;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * <p> reads the key of an event from the member its class annotates with {@link EventKey}. </p>
+ *
+ * <p>The member is looked up once per event class and read through a method handle afterwards.
+ */
+public final class EventKeys {
+    /** the key reader of each event class, {@code null} for classes without a key **/
+    private static final ClassValue<MethodHandle> READERS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return findReader(type);
+        }
+    };
+
+    private EventKeys() {
+    }
+
+    /**
+     * Returns the key of {@code event}, or {@code null} if its class has no {@link EventKey} member
+     * or the member is null.
+     */
+    public static Object keyOf(Object event) {
+        MethodHandle reader = READERS.get(event.getClass());
+        if (reader == null) {
+            return null;
+        }
+        try {
+            return (Object) reader.invokeExact(event);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not read the key of " + event, e);
+        }
+    }
+
+    /** Whether instances of {@code eventType} carry a key. */
+    public static boolean hasKey(Class<?> eventType) {
+        return READERS.get(eventType) != null;
+    }
+
+    private static MethodHandle findReader(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            try {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(EventKey.class) && !Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        return adapt(lookup.unreflectGetter(field));
+                    }
+                }
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (method.isAnnotationPresent(EventKey.class) && !Modifier.isStatic(method.getModifiers())) {
+                        if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                            throw new IllegalArgumentException("@EventKey method[" + clazz.getName() + "#" + method.getName()
+                                    + "] must take no parameter and return the key.");
+                        }
+                        method.setAccessible(true);
+                        return adapt(lookup.unreflect(method));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Could not access the @EventKey member of " + clazz.getName(), e);
+            }
+        }
+        return null;
+    }
+
+    /** Adapts a reader to {@code (Object)Object}, boxing primitive keys. */
+    private static MethodHandle adapt(MethodHandle reader) {
+        return reader.asType(MethodType.methodType(Object.class, Object.class));
+    }
+}
@@ -0,0 +1,181 @@
+package com.deepexi.eventbus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p> Java Flight Recorder events of the bus: a post, the hand-off of an event to a queue, and a
+ * subscriber call. This is the implementation for Java 11 and later, which records them when the
+ * runtime has the {@code jdk.jfr} module; the one in {@code src/main/java} records nothing. Both
+ * must keep the same members. </p>
+ *
+ * <p>Each event is recorded by a {@code begin} method, which returns {@code null} unless the event
+ * is being recorded, and a {@code commit} method that callers skip on {@code null}, so that nothing
+ * is allocated or measured while no recording is running. The event classes are only loaded when
+ * the module is present.
+ */
+final class FlightEvents {
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    /** instances asked whether their event type is enabled in a running recording **/
+    private static final PostEvent POST = AVAILABLE ? new PostEvent() : null;
+    private static final EnqueueEvent ENQUEUE = AVAILABLE ? new EnqueueEvent() : null;
+    private static final InvocationEvent INVOCATION = AVAILABLE ? new InvocationEvent() : null;
+
+    private FlightEvents() {
+    }
+
+    /** Starts a post event, or returns {@code null} if post events are not recorded. */
+    static Object beginPost() {
+        return AVAILABLE && POST.isEnabled() ? newPost() : null;
+    }
+
+    private static PostEvent newPost() {
+        PostEvent post = new PostEvent();
+        post.begin();
+        return post;
+    }
+
+    static void commitPost(Object post, String bus, Object event, int subscribers) {
+        PostEvent recorded = (PostEvent) post;
+        recorded.end();
+        if (recorded.shouldCommit()) {
+            recorded.bus = bus;
+            recorded.eventType = event.getClass();
+            recorded.subscribers = subscribers;
+            recorded.commit();
+        }
+    }
+
+    /** Starts an enqueue event, or returns {@code null} if enqueue events are not recorded. */
+    static Object beginEnqueue() {
+        return AVAILABLE && ENQUEUE.isEnabled() ? newEnqueue() : null;
+    }
+
+    private static EnqueueEvent newEnqueue() {
+        EnqueueEvent enqueue = new EnqueueEvent();
+        enqueue.begin();
+        return enqueue;
+    }
+
+    /**
+     * @param subscriber the name of the subscriber the event is queued for, {@code null} if it is
+     *     queued for all of them
+     */
+    static void commitEnqueue(Object enqueue, String bus, Object event, String subscriber, int priority) {
+        EnqueueEvent recorded = (EnqueueEvent) enqueue;
+        recorded.end();
+        if (recorded.shouldCommit()) {
+            recorded.bus = bus;
+            recorded.eventType = event.getClass();
+            recorded.subscriber = subscriber;
+            recorded.priority = priority;
+            recorded.commit();
+        }
+    }
+
+    /**
+     * Returns the time an event is queued at, to be handed to {@link #commitInvocation}, or 0 if
+     * invocation events are not recorded.
+     */
+    static long enqueueTime() {
+        return AVAILABLE && INVOCATION.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /** Starts an invocation event, or returns {@code null} if invocation events are not recorded. */
+    static Object beginInvocation() {
+        return AVAILABLE && INVOCATION.isEnabled() ? newInvocation() : null;
+    }
+
+    private static InvocationEvent newInvocation() {
+        InvocationEvent invocation = new InvocationEvent();
+        invocation.callStart = System.nanoTime();
+        invocation.begin();
+        return invocation;
+    }
+
+    /**
+     * @param enqueueTime the {@link #enqueueTime()} of the event, 0 if it was not queued
+     */
+    static void commitInvocation(Object invocation, String bus, Object event, String subscriber, int priority,
+            long enqueueTime) {
+        InvocationEvent recorded = (InvocationEvent) invocation;
+        recorded.end();
+        if (recorded.shouldCommit()) {
+            recorded.bus = bus;
+            recorded.eventType = event.getClass();
+            recorded.subscriber = subscriber;
+            recorded.priority = priority;
+            recorded.queuedTime = enqueueTime == 0L ? 0L : Math.max(0L, recorded.callStart - enqueueTime);
+            recorded.commit();
+        }
+    }
+
+    @Name("com.deepexi.eventbus.Post")
+    @Label("Post")
+    @Category("EventBus")
+    @Description("An event posted to a bus, including the subscriber calls made on the posting thread")
+    static final class PostEvent extends Event {
+        @Label("Bus")
+        String bus;
+
+        @Label("Event Type")
+        Class<?> eventType;
+
+        @Label("Subscribers")
+        int subscribers;
+    }
+
+    @Name("com.deepexi.eventbus.Enqueue")
+    @Label("Enqueue")
+    @Category("EventBus")
+    @Description("An event handed to the executor of a subscriber or to the ring buffer, including the time "
+            + "spent waiting for room in the queue")
+    @StackTrace(false)
+    static final class EnqueueEvent extends Event {
+        @Label("Bus")
+        String bus;
+
+        @Label("Event Type")
+        Class<?> eventType;
+
+        @Label("Subscriber")
+        @Description("Missing if the event is queued for all of its subscribers")
+        String subscriber;
+
+        @Label("Priority")
+        int priority;
+    }
+
+    @Name("com.deepexi.eventbus.Invocation")
+    @Label("Subscriber Invocation")
+    @Category("EventBus")
+    @Description("A call of a subscriber method with an event")
+    @StackTrace(false)
+    static final class InvocationEvent extends Event {
+        @Label("Bus")
+        String bus;
+
+        @Label("Event Type")
+        Class<?> eventType;
+
+        @Label("Subscriber")
+        String subscriber;
+
+        @Label("Priority")
+        int priority;
+
+        @Label("Queued Time")
+        @Description("Time between the hand-off of the event to the executor and the start of the call")
+        @Timespan(Timespan.NANOSECONDS)
+        long queuedTime;
+
+        /** when the call started, by {@link System#nanoTime()}; transient fields are not recorded **/
+        transient long callStart;
+    }
+}
@@ -0,0 +1,31 @@
+package com.deepexi.eventbus.base;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p> access to virtual threads, the Java 21 implementation packaged under
+ * {@code META-INF/versions/21} of the multi-release jar. Must keep the same members as the Java 8
+ * implementation in {@code src/main/java}. </p>
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /** Whether the running JVM has virtual threads. */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /** An executor starting a new virtual thread for each task, named after {@code identifier}. */
+    static ExecutorService newThreadPerTaskExecutor(String identifier) {
+        return Executors.newThreadPerTaskExecutor(newThreadFactory(identifier + "-virtual-"));
+    }
+
+    /** A factory of virtual threads named {@code prefix} followed by a counter. */
+    static ThreadFactory newThreadFactory(String prefix) {
+        return Thread.ofVirtual().name(prefix, 0).factory();
+    }
+}
@@ -0,0 +1,85 @@
+package com.eventbus.test;
+
+import com.deepexi.eventbus.EventBus;
+import com.deepexi.eventbus.annotation.Subscribe;
+import com.deepexi.eventbus.constant.Priority;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * <p> checks that posting to already-registered subscribers of a synchronous bus allocates nothing
+ * in steady state, including reentrant posts from a subscriber. Exits with status 1 otherwise. </p>
+ *
+ * <p>Relies on {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, available on
+ * HotSpot JVMs. </p>
+ */
+public class AllocationCheck {
+    private static final int WARMUP_POSTS = 200_000;
+    private static final int POSTS = 1_000_000;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        EventBus bus = new EventBus("allocation-check", false);
+        CountingListener listener = new CountingListener(bus);
+        bus.register(listener);
+        bus.register(new OtherListener());
+        String event = "event";
+
+        for (int i = 0; i < WARMUP_POSTS; i++) {
+            bus.post(event);
+        }
+        // the cost of measuring itself
+        long overhead = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - overhead;
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < POSTS; i++) {
+            bus.post(event);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        double perPost = (double) allocated / POSTS;
+        System.out.printf("%d posts (%d deliveries), %d bytes allocated, %.4f bytes/post%n",
+                POSTS, listener.count, allocated, perPost);
+        if (allocated > 0) {
+            System.out.println("FAILED: posting allocated memory in steady state");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    public static class CountingListener {
+        private static final Long REPLY = 42L;
+        private final EventBus bus;
+        long count;
+
+        CountingListener(EventBus bus) {
+            this.bus = bus;
+        }
+
+        @Subscribe(priority = Priority.XL_LEVEL)
+        public void onEvent(String event) {
+            count++;
+        }
+
+        @Subscribe
+        public void onAgain(String event) {
+            count++;
+            // reentrant post, queued by the dispatcher until the current event is done
+            bus.post(REPLY);
+        }
+
+        @Subscribe
+        public void onLong(Long event) {
+            count++;
+        }
+    }
+
+    public static class OtherListener {
+        @Subscribe(priority = Priority.S_LEVEL)
+        public void onEvent(CharSequence event) {
+        }
+    }
+}